@@ -0,0 +1,70 @@
+package com.shopping.e_commerce.Entity;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures keeping the cart total up to date: the incremental update applied on every item change,
+ * which recalculates the whole total every few changes, against a full recalculation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CartBenchmark {
+
+    @Param({"10", "100"})
+    private int items;
+
+    private Cart cart;
+    private List<CartItem> cartItems;
+    private int next;
+
+    @Setup
+    public void setUp(){
+        cart = new Cart();
+        cart.setId(1L);
+        cartItems = new ArrayList<>();
+        for(long i = 1; i <= items; i++){
+            Product product = new Product();
+            product.setId(i);
+            CartItem item = new CartItem();
+            item.setId(i);
+            item.setProduct(product);
+            item.setQuantity(1);
+            item.setUnitPrice(new BigDecimal("19.99"));
+            item.setTotalPrice();
+            cart.addItem(item);
+            cartItems.add(item);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal updateItem(){
+        CartItem item = cartItems.get(next++ % items);
+        cart.updateItem(item, item.getQuantity() % 5 + 1, item.getUnitPrice());
+        return cart.getTotalAmount();
+    }
+
+    @Benchmark
+    public BigDecimal recalculateTotalAmount(){
+        cart.recalculateTotalAmount();
+        return cart.getTotalAmount();
+    }
+}
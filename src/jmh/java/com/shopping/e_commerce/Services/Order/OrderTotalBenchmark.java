@@ -0,0 +1,54 @@
+package com.shopping.e_commerce.Services.Order;
+
+import com.shopping.e_commerce.Entity.OrderItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the order total calculated at checkout. The service's collaborators are not used by it and left out.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderTotalBenchmark {
+
+    @Param({"5", "50"})
+    private int items;
+
+    private OrderService orderService;
+    private List<OrderItem> orderItems;
+
+    @Setup
+    public void setUp(){
+        orderService = new OrderService(null, null, null, null, null, null, null, null);
+        orderItems = new ArrayList<>();
+        for(int i = 1; i <= items; i++){
+            OrderItem item = new OrderItem();
+            item.setQuantity(i % 3 + 1);
+            item.setPrice(new BigDecimal("19.99"));
+            orderItems.add(item);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal calcTotalPrice(){
+        return orderService.calcTotalPrice(orderItems);
+    }
+}
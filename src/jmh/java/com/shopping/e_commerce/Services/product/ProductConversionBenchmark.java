@@ -0,0 +1,127 @@
+package com.shopping.e_commerce.Services.product;
+
+import com.shopping.e_commerce.Entity.Category;
+import com.shopping.e_commerce.Entity.Product;
+import com.shopping.e_commerce.Repository.ImageRepository;
+import com.shopping.e_commerce.Repository.ReviewRepository;
+import com.shopping.e_commerce.dto.ProductDTO.ProductDto;
+import com.shopping.e_commerce.mapper.ImageMapper;
+import com.shopping.e_commerce.mapper.ProductMapper;
+import com.shopping.e_commerce.mapper.ReviewMapper;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures converting products to ProductDto with their images and reviews, for a single product
+ * and for a listing page. The image and review repositories are stubs returning prepared rows,
+ * so the numbers cover grouping and mapping but not the queries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductConversionBenchmark {
+
+    private static final int IMAGES_PER_PRODUCT = 3;
+    private static final int REVIEWS_PER_PRODUCT = 5;
+
+    @Param({"20"})
+    private int pageSize;
+
+    private ProductService productService;
+    private List<Product> products;
+
+    @Setup
+    public void setUp(){
+        products = new ArrayList<>();
+        Map<Long, List<Object>> images = new HashMap<>();
+        Map<Long, List<Object>> reviews = new HashMap<>();
+        Category category = new Category("Electronics");
+        for(long id = 1; id <= pageSize; id++){
+            Product product = new Product();
+            product.setId(id);
+            product.setName("Product " + id);
+            product.setBrand("Brand");
+            product.setDescription("A product used to measure conversion");
+            product.setCode("P-" + id);
+            product.setPrice(new BigDecimal("19.99"));
+            product.setInventory(100);
+            product.setCategory(category);
+            products.add(product);
+            for(long i = 0; i < IMAGES_PER_PRODUCT; i++){
+                images.computeIfAbsent(id, key -> new ArrayList<>()).add(new ImageRow(id * 10 + i, "image-" + i + ".jpg", id));
+            }
+            for(long i = 0; i < REVIEWS_PER_PRODUCT; i++){
+                reviews.computeIfAbsent(id, key -> new ArrayList<>()).add(new ReviewRow(id * 10 + i, 4, "Reviewer", "Good", "Works as described", id));
+            }
+        }
+        ImageRepository imageRepository = stub(ImageRepository.class, "findImageViewsByProductIdIn", images);
+        ReviewRepository reviewRepository = stub(ReviewRepository.class, "findReviewViewsByProductIdIn", reviews);
+        productService = new ProductService(null, null, imageRepository, reviewRepository,
+                Mappers.getMapper(ProductMapper.class), Mappers.getMapper(ImageMapper.class), Mappers.getMapper(ReviewMapper.class),
+                null, null, null, null, null, null);
+    }
+
+    @Benchmark
+    public ProductDto convertToDTO(){
+        return productService.convertToDTO(products.get(0));
+    }
+
+    @Benchmark
+    public List<ProductDto> getConvertedProducts(){
+        return productService.getConvertedProducts(products);
+    }
+
+    /**
+     * Returns a repository whose only usable method returns the prepared rows of the products asked for.
+     */
+    private static <T> T stub(Class<T> type, String method, Map<Long, List<Object>> rowsByProduct){
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, invoked, args) -> {
+            if(invoked.getName().equals(method)){
+                List<Object> rows = new ArrayList<>();
+                for(Object productId : (Collection<?>) args[0]){
+                    rows.addAll(rowsByProduct.getOrDefault(productId, List.of()));
+                }
+                return rows;
+            }
+            throw new UnsupportedOperationException(invoked.getName());
+        }));
+    }
+
+    private record ImageRow(Long id, String fileName, Long productId) implements ImageRepository.ProductImageView {
+        @Override public Long getId() { return id; }
+        @Override public String getFileName() { return fileName; }
+        @Override public Long getProductId() { return productId; }
+    }
+
+    private record ReviewRow(Long id, Integer rating, String name, String summary, String message, Long productId)
+            implements ReviewRepository.ProductReviewView {
+        @Override public Long getId() { return id; }
+        @Override public Integer getRating() { return rating; }
+        @Override public String getName() { return name; }
+        @Override public String getSummary() { return summary; }
+        @Override public String getMessage() { return message; }
+        @Override public Long getProductId() { return productId; }
+    }
+}
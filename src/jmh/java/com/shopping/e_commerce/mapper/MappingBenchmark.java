@@ -0,0 +1,186 @@
+package com.shopping.e_commerce.mapper;
+
+import com.shopping.e_commerce.Entity.Billing;
+import com.shopping.e_commerce.Entity.Cart;
+import com.shopping.e_commerce.Entity.CartItem;
+import com.shopping.e_commerce.Entity.Category;
+import com.shopping.e_commerce.Entity.Order;
+import com.shopping.e_commerce.Entity.OrderItem;
+import com.shopping.e_commerce.Entity.Product;
+import com.shopping.e_commerce.Entity.Review;
+import com.shopping.e_commerce.Entity.ShippingInformation;
+import com.shopping.e_commerce.Entity.User;
+import com.shopping.e_commerce.Enums.OrderStatus;
+import com.shopping.e_commerce.dto.OrderDTO.OrderDto;
+import com.shopping.e_commerce.dto.ProductDTO.ProductDto;
+import com.shopping.e_commerce.dto.UserDTO.UserDto;
+import org.mapstruct.factory.Mappers;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the generated mappers with ModelMapper, configured as the application configured it before,
+ * on the entity graphs behind the product, order and user endpoints.
+ * The user carries a cart, orders and reviews, which ModelMapper traversed and the generated mapper skips.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+
+    private static final int ITEMS = 5;
+
+    private ModelMapper modelMapper;
+    private ProductMapper productMapper;
+    private OrderMapper orderMapper;
+    private UserMapper userMapper;
+
+    private Product product;
+    private Order order;
+    private User user;
+
+    @Setup
+    public void setUp(){
+        modelMapper = new ModelMapper();
+        modelMapper.typeMap(Product.class, ProductDto.class).addMappings(mapper -> {
+            mapper.skip(ProductDto::setImages);
+            mapper.skip(ProductDto::setReviews);
+        });
+        productMapper = Mappers.getMapper(ProductMapper.class);
+        orderMapper = Mappers.getMapper(OrderMapper.class);
+        userMapper = new UserMapperImpl(new BillingMapperImpl(), new ShippingMapperImpl());
+
+        product = product(1L);
+        user = user();
+        order = order(user);
+    }
+
+    @Benchmark
+    public ProductDto productModelMapper(){
+        return modelMapper.map(product, ProductDto.class);
+    }
+
+    @Benchmark
+    public ProductDto productGenerated(){
+        return productMapper.toDto(product);
+    }
+
+    @Benchmark
+    public OrderDto orderModelMapper(){
+        return modelMapper.map(order, OrderDto.class);
+    }
+
+    @Benchmark
+    public OrderDto orderGenerated(){
+        return orderMapper.toDto(order);
+    }
+
+    @Benchmark
+    public UserDto userModelMapper(){
+        return modelMapper.map(user, UserDto.class);
+    }
+
+    @Benchmark
+    public UserDto userGenerated(){
+        return userMapper.toDto(user);
+    }
+
+    private static Product product(Long id){
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setBrand("Brand");
+        product.setDescription("A product used to measure mapping");
+        product.setCode("P-" + id);
+        product.setPrice(new BigDecimal("19.99"));
+        product.setInventory(100);
+        product.setCategory(new Category("Electronics"));
+        return product;
+    }
+
+    private static User user(){
+        User user = new User();
+        user.setId(1L);
+        user.setFirstName("Jane");
+        user.setLastName("Doe");
+        user.setContactNo("0820000000");
+        user.setEmail("jane@example.com");
+
+        Cart cart = new Cart();
+        cart.setId(1L);
+        cart.setUser(user);
+        List<Review> reviews = new ArrayList<>();
+        for(long i = 1; i <= ITEMS; i++){
+            CartItem item = new CartItem();
+            item.setId(i);
+            item.setQuantity(1);
+            item.setUnitPrice(new BigDecimal("19.99"));
+            item.setProduct(product(i));
+            cart.addItem(item);
+
+            Review review = new Review();
+            review.setId(i);
+            review.setRating(5);
+            review.setSummary("Good");
+            review.setUser(user);
+            reviews.add(review);
+        }
+        user.setCart(cart);
+        user.setReviews(reviews);
+
+        Billing billing = new Billing();
+        billing.setId(1L);
+        billing.setFullName("Jane Doe");
+        billing.setEmail("jane@example.com");
+        billing.setUser(user);
+        user.setBilling(billing);
+
+        ShippingInformation shipping = new ShippingInformation();
+        shipping.setId(1L);
+        shipping.setStreetAddress("1 Main Road");
+        shipping.setCity("Cape Town");
+        shipping.setUser(user);
+        user.setShippingInformations(List.of(shipping));
+        return user;
+    }
+
+    private static Order order(User user){
+        Order order = new Order();
+        order.setId(1L);
+        order.setUser(user);
+        order.setOrderDate(LocalDate.now());
+        order.setOrderStatus(OrderStatus.PENDING);
+        order.setTotalAmount(new BigDecimal("99.95"));
+        order.setOrderItems(new HashSet<>());
+        for(long i = 1; i <= ITEMS; i++){
+            OrderItem item = new OrderItem();
+            item.setId(i);
+            item.setQuantity(1);
+            item.setPrice(new BigDecimal("19.99"));
+            item.setProduct(product(i));
+            item.setOrder(order);
+            order.getOrderItems().add(item);
+        }
+        user.setOrder(List.of(order));
+        return order;
+    }
+}
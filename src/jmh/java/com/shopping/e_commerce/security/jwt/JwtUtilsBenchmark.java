@@ -0,0 +1,50 @@
+package com.shopping.e_commerce.security.jwt;
+
+import com.shopping.e_commerce.security.user.ShoppingUserDetails;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the validation of an access token, done by the authentication filter on every secured request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilsBenchmark {
+
+    private JwtUtils jwtUtils;
+    private String token;
+
+    @Setup
+    public void setUp(){
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", Base64.getEncoder().encodeToString(new byte[32]));
+        ReflectionTestUtils.setField(jwtUtils, "expirationTime", 3_600_000);
+        ReflectionTestUtils.setField(jwtUtils, "refreshExpirationTime", 86_400_000);
+        List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+        token = jwtUtils.generateTokenWithUserDetails(new ShoppingUserDetails(1L, "jane@example.com", "password", authorities));
+    }
+
+    @Benchmark
+    public boolean isTokenValid(){
+        return jwtUtils.isTokenValid(token);
+    }
+}
@@ -0,0 +1,108 @@
+package com.shopping.e_commerce.loadtest;
+
+import com.shopping.e_commerce.Entity.Category;
+import com.shopping.e_commerce.Entity.Product;
+import com.shopping.e_commerce.Entity.Role;
+import com.shopping.e_commerce.Entity.User;
+import com.shopping.e_commerce.Repository.CategoryRepository;
+import com.shopping.e_commerce.Repository.ProductRepository;
+import com.shopping.e_commerce.Repository.RoleRepository;
+import com.shopping.e_commerce.Repository.UserRepository;
+import org.springframework.context.ApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Fills the empty database with a catalog and a user population through the application's repositories.
+ * Every product gets more stock than a run can sell, so checkouts measure the happy path.
+ */
+class CatalogSeeder {
+
+    static final String PASSWORD = "loadtest-password";
+
+    private static final int BATCH_SIZE = 500;
+    private static final int INVENTORY = 1_000_000;
+
+    private final CategoryRepository categoryRepository;
+    private final ProductRepository productRepository;
+    private final RoleRepository roleRepository;
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final TransactionTemplate transactionTemplate;
+
+    CatalogSeeder(ApplicationContext context) {
+        this.categoryRepository = context.getBean(CategoryRepository.class);
+        this.productRepository = context.getBean(ProductRepository.class);
+        this.roleRepository = context.getBean(RoleRepository.class);
+        this.userRepository = context.getBean(UserRepository.class);
+        this.passwordEncoder = context.getBean(PasswordEncoder.class);
+        this.transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    /**
+     * Seeds the catalog in one transaction, so the products reference the categories saved with them.
+     *
+     * @return the IDs of the seeded products
+     */
+    List<Long> seedProducts(LoadTestSettings settings){
+        return transactionTemplate.execute(status -> saveProducts(settings));
+    }
+
+    private List<Long> saveProducts(LoadTestSettings settings){
+        List<Category> categories = new ArrayList<>();
+        for(int i = 1; i <= settings.categories(); i++){
+            categories.add(new Category("Category " + i));
+        }
+        categories = categoryRepository.saveAll(categories);
+
+        List<Long> productIds = new ArrayList<>();
+        List<Product> batch = new ArrayList<>();
+        for(int i = 1; i <= settings.products(); i++){
+            batch.add(new Product("Product " + i, "Brand " + (i % 50), "Seeded product " + i, "LT-" + i,
+                    BigDecimal.valueOf(100 + i % 9_900, 2), INVENTORY, categories.get(i % categories.size())));
+            if(batch.size() == BATCH_SIZE || i == settings.products()){
+                productRepository.saveAll(batch).forEach(product -> productIds.add(product.getId()));
+                batch.clear();
+            }
+        }
+        return productIds;
+    }
+
+    /**
+     * Seeds the users in one transaction, all sharing the same password, which is hashed once.
+     *
+     * @return the emails of the seeded users
+     */
+    List<String> seedUsers(LoadTestSettings settings){
+        return transactionTemplate.execute(status -> saveUsers(settings));
+    }
+
+    private List<String> saveUsers(LoadTestSettings settings){
+        Role customer = roleRepository.findByName("CUSTOMER").orElseThrow();
+        String password = passwordEncoder.encode(PASSWORD);
+        List<String> emails = new ArrayList<>();
+        List<User> batch = new ArrayList<>();
+        for(int i = 1; i <= settings.users(); i++){
+            User user = new User();
+            user.setFirstName("Load");
+            user.setLastName("Tester " + i);
+            user.setEmail("loadtest-" + i + "@example.com");
+            user.setPassword(password);
+            user.setRoles(new HashSet<>(Set.of(customer)));
+            batch.add(user);
+            emails.add(user.getEmail());
+            if(batch.size() == BATCH_SIZE || i == settings.users()){
+                userRepository.saveAll(batch);
+                batch.clear();
+            }
+        }
+        return emails;
+    }
+}
@@ -0,0 +1,55 @@
+package com.shopping.e_commerce.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and failures of one endpoint. Latencies are recorded in microseconds, up to one minute,
+ * with three significant digits.
+ */
+class EndpointStats {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final String name;
+    private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+    private final LongAdder failures = new LongAdder();
+
+    EndpointStats(String name) {
+        this.name = name;
+    }
+
+    String getName(){
+        return name;
+    }
+
+    void record(long startNanos, boolean success){
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+        recorder.recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+        if(!success){
+            failures.increment();
+        }
+    }
+
+    /**
+     * Discards what was recorded so far, at the end of the warmup.
+     */
+    void reset(){
+        recorder.reset();
+        failures.reset();
+    }
+
+    /**
+     * Returns the latencies recorded since the last reset.
+     */
+    Histogram takeHistogram(){
+        return recorder.getIntervalHistogram();
+    }
+
+    long getFailures(){
+        return failures.sum();
+    }
+}
@@ -0,0 +1,164 @@
+package com.shopping.e_commerce.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays shopping sessions with a fixed number of virtual users, each on its own thread.
+ * A session logs in, lists the products, adds one or more random products to the cart and then either
+ * places an order or abandons the cart. Virtual users take turns over disjoint sets of the seeded users,
+ * so two sessions never share a cart. The load is a closed model: every virtual user waits for a response
+ * before its next request, so the recorded latencies are those of the server at the given concurrency.
+ */
+class LoadDriver {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
+    private final LoadTestSettings settings;
+    private final String baseUrl;
+    private final List<String> emails;
+    private final List<Long> productIds;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final EndpointStats login = new EndpointStats("POST /auth/login");
+    private final EndpointStats products = new EndpointStats("GET /products/all");
+    private final EndpointStats addToCart = new EndpointStats("POST /cartItems/add");
+    private final EndpointStats placeOrder = new EndpointStats("POST /orders/order/add");
+
+    private volatile boolean running = true;
+
+    LoadDriver(LoadTestSettings settings, String baseUrl, List<String> emails, List<Long> productIds) {
+        this.settings = settings;
+        this.baseUrl = baseUrl;
+        this.emails = emails;
+        this.productIds = productIds;
+    }
+
+    List<EndpointStats> getStats(){
+        return List.of(login, products, addToCart, placeOrder);
+    }
+
+    /**
+     * Runs the warmup and then records for the configured duration.
+     *
+     * @return the recorded time in nanoseconds
+     */
+    long run() throws InterruptedException {
+        ExecutorService virtualUsers = Executors.newFixedThreadPool(settings.concurrency());
+        for(int i = 0; i < settings.concurrency(); i++){
+            int virtualUser = i;
+            virtualUsers.execute(() -> runSessions(virtualUser));
+        }
+        TimeUnit.SECONDS.sleep(settings.warmupSeconds());
+        getStats().forEach(EndpointStats::reset);
+        long start = System.nanoTime();
+        TimeUnit.SECONDS.sleep(settings.durationSeconds());
+        running = false;
+        long recorded = System.nanoTime() - start;
+        virtualUsers.shutdown();
+        if(!virtualUsers.awaitTermination(REQUEST_TIMEOUT.toSeconds(), TimeUnit.SECONDS)){
+            virtualUsers.shutdownNow();
+        }
+        return recorded;
+    }
+
+    private void runSessions(int virtualUser){
+        for(int session = 0; running; session++){
+            int userIndex = virtualUser + session * settings.concurrency();
+            if(userIndex >= emails.size()){
+                // Fewer users than virtual users times sessions, start over with this virtual user's first user
+                session = 0;
+                userIndex = virtualUser;
+                if(userIndex >= emails.size()){
+                    return;
+                }
+            }
+            try {
+                runSession(emails.get(userIndex));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void runSession(String email) throws InterruptedException {
+        String body = "{\"email\":\"" + email + "\",\"password\":\"" + CatalogSeeder.PASSWORD + "\"}";
+        HttpResponse<String> response = send(login, HttpRequest.newBuilder(uri("/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body)));
+        JsonNode jwt = parseData(response);
+        if(jwt == null){
+            return;
+        }
+        String authorization = "Bearer " + jwt.path("token").asText();
+        long userId = jwt.path("id").asLong();
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for(int i = 0; i < settings.browsesPerSession() && running; i++){
+            send(products, HttpRequest.newBuilder(uri("/products/all")).GET());
+        }
+        int items = 1 + random.nextInt(settings.maxItemsPerSession());
+        for(int i = 0; i < items && running; i++){
+            Long productId = productIds.get(random.nextInt(productIds.size()));
+            send(addToCart, HttpRequest.newBuilder(uri("/cartItems/add?productId=" + productId + "&quantity=1"))
+                    .header("Authorization", authorization)
+                    .POST(HttpRequest.BodyPublishers.noBody()));
+        }
+        if(running && random.nextDouble() < settings.checkoutRatio()){
+            send(placeOrder, HttpRequest.newBuilder(uri("/orders/order/add?userId=" + userId))
+                    .header("Authorization", authorization)
+                    .header("Idempotency-Key", UUID.randomUUID().toString())
+                    .POST(HttpRequest.BodyPublishers.noBody()));
+        }
+    }
+
+    /**
+     * Sends a request and records its latency, a transport error or a status other than 2xx counts as a failure.
+     *
+     * @return the response, or null if none was received
+     */
+    private HttpResponse<String> send(EndpointStats stats, HttpRequest.Builder request) throws InterruptedException {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = httpClient.send(request.timeout(REQUEST_TIMEOUT).build(), HttpResponse.BodyHandlers.ofString());
+            stats.record(start, response.statusCode() / 100 == 2);
+            return response;
+        } catch (IOException e) {
+            stats.record(start, false);
+            return null;
+        }
+    }
+
+    private JsonNode parseData(HttpResponse<String> response){
+        if(response == null || response.statusCode() != 200){
+            return null;
+        }
+        try {
+            return objectMapper.readTree(response.body()).path("data");
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private URI uri(String path){
+        return URI.create(baseUrl + path);
+    }
+}
@@ -0,0 +1,109 @@
+package com.shopping.e_commerce.loadtest;
+
+import com.shopping.e_commerce.ECommerceApplication;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end load test of the shopping flow: login, product listing, add to cart and checkout.
+ * Boots the application on a random port against an in-memory H2 database in MySQL mode, seeds it with
+ * {@code loadtest.products} products and {@code loadtest.users} users, and replays sessions with
+ * {@code loadtest.concurrency} virtual users (see {@link LoadDriver}). After {@code loadtest.warmup-seconds}
+ * the latencies are recorded per endpoint for {@code loadtest.duration-seconds}. The percentiles are printed,
+ * and every endpoint's histogram is written to {@code loadtest.output-directory} as an .hgrm file,
+ * with a summary.csv for comparing builds. Any application property can be overridden the same way.
+ */
+public class LoadTest {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    public static void main(String[] args) throws Exception {
+        // Devtools would restart the application in a new class loader
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        SpringApplication application = new SpringApplication(ECommerceApplication.class);
+        application.setDefaultProperties(defaultProperties());
+        try (ConfigurableApplicationContext context = application.run(args)) {
+            Environment environment = context.getEnvironment();
+            LoadTestSettings settings = LoadTestSettings.from(environment);
+            CatalogSeeder seeder = new CatalogSeeder(context);
+            List<Long> productIds = seeder.seedProducts(settings);
+            List<String> emails = seeder.seedUsers(settings);
+            System.out.printf("Seeded %d products and %d users, running %d virtual users for %ds after a %ds warmup%n",
+                    productIds.size(), emails.size(), settings.concurrency(), settings.durationSeconds(), settings.warmupSeconds());
+
+            String baseUrl = "http://localhost:" + environment.getProperty("local.server.port") + environment.getProperty("api.prefix");
+            LoadDriver driver = new LoadDriver(settings, baseUrl, emails, productIds);
+            long recordedNanos = driver.run();
+            report(driver.getStats(), recordedNanos, settings.outputDirectory());
+        }
+    }
+
+    private static Map<String, Object> defaultProperties(){
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("server.port", 0);
+        properties.put("api.prefix", "/api/v1");
+        properties.put("spring.datasource.url", "jdbc:h2:mem:loadtest;MODE=MySQL;NON_KEYWORDS=USER;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE");
+        properties.put("spring.datasource.username", "sa");
+        properties.put("spring.datasource.password", "");
+        properties.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        properties.put("spring.jpa.properties.hibernate.jdbc.batch_size", 50);
+        properties.put("spring.jpa.properties.hibernate.order_updates", true);
+        properties.put("spring.jpa.properties.hibernate.order_inserts", true);
+        properties.put("auth.token.jwtSecret", Base64.getEncoder().encodeToString(secret));
+        properties.put("auth.token.expirationInMils", 3_600_000);
+        properties.put("auth.token.refreshExpirationInMils", 86_400_000);
+        properties.put("images.storage.location", "target/loadtest/image-store");
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("logging.level.root", "WARN");
+        return properties;
+    }
+
+    private static void report(List<EndpointStats> stats, long recordedNanos, Path outputDirectory) throws IOException {
+        Files.createDirectories(outputDirectory);
+        double seconds = recordedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+        List<String> summary = new ArrayList<>();
+        summary.add("endpoint,requests,failures,throughput_per_s,p50_ms,p90_ms,p99_ms,p99_9_ms,max_ms");
+        System.out.printf("%-26s %9s %8s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "failures", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for(EndpointStats endpoint : stats){
+            Histogram histogram = endpoint.takeHistogram();
+            StringBuilder line = new StringBuilder(String.format(Locale.ROOT, "%s,%d,%d,%.1f",
+                    endpoint.getName(), histogram.getTotalCount(), endpoint.getFailures(), histogram.getTotalCount() / seconds));
+            System.out.printf(Locale.ROOT, "%-26s %9d %8d %9.1f", endpoint.getName(), histogram.getTotalCount(),
+                    endpoint.getFailures(), histogram.getTotalCount() / seconds);
+            for(double percentile : PERCENTILES){
+                double millis = histogram.getValueAtPercentile(percentile) / 1000.0;
+                line.append(String.format(Locale.ROOT, ",%.3f", millis));
+                System.out.printf(Locale.ROOT, " %9.3f", millis);
+            }
+            line.append(String.format(Locale.ROOT, ",%.3f", histogram.getMaxValue() / 1000.0));
+            System.out.printf(Locale.ROOT, " %9.3f%n", histogram.getMaxValue() / 1000.0);
+            summary.add(line.toString());
+
+            // Values in microseconds, scaled to milliseconds in the file
+            Path file = outputDirectory.resolve(endpoint.getName().replaceAll("[^A-Za-z0-9]+", "_").replaceAll("^_|_$", "") + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+                histogram.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+        Files.write(outputDirectory.resolve("summary.csv"), summary);
+        System.out.println("Histograms and summary written to " + outputDirectory.toAbsolutePath());
+    }
+}
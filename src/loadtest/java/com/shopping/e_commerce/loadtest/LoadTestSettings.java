@@ -0,0 +1,45 @@
+package com.shopping.e_commerce.loadtest;
+
+import org.springframework.core.env.Environment;
+
+import java.nio.file.Path;
+
+/**
+ * Settings of a load test run, read from {@code loadtest.*} properties.
+ *
+ * @param products the number of products in the seeded catalog
+ * @param categories the number of categories the products are spread over
+ * @param users the number of seeded users
+ * @param concurrency the number of virtual users sending requests at the same time
+ * @param warmupSeconds how long the scenarios run before latencies are recorded
+ * @param durationSeconds how long latencies are recorded
+ * @param browsesPerSession how often a session lists the products before adding to the cart
+ * @param maxItemsPerSession the maximum number of products a session adds to the cart, at least one is added
+ * @param checkoutRatio the share of sessions that place an order, the others abandon their cart
+ * @param outputDirectory where the histograms and the summary are written
+ */
+record LoadTestSettings(int products,
+                        int categories,
+                        int users,
+                        int concurrency,
+                        int warmupSeconds,
+                        int durationSeconds,
+                        int browsesPerSession,
+                        int maxItemsPerSession,
+                        double checkoutRatio,
+                        Path outputDirectory) {
+
+    static LoadTestSettings from(Environment environment){
+        return new LoadTestSettings(
+                environment.getProperty("loadtest.products", Integer.class, 1000),
+                environment.getProperty("loadtest.categories", Integer.class, 20),
+                environment.getProperty("loadtest.users", Integer.class, 200),
+                environment.getProperty("loadtest.concurrency", Integer.class, 32),
+                environment.getProperty("loadtest.warmup-seconds", Integer.class, 15),
+                environment.getProperty("loadtest.duration-seconds", Integer.class, 60),
+                environment.getProperty("loadtest.browses-per-session", Integer.class, 2),
+                environment.getProperty("loadtest.max-items-per-session", Integer.class, 3),
+                environment.getProperty("loadtest.checkout-ratio", Double.class, 0.5),
+                Path.of(environment.getProperty("loadtest.output-directory", "target/loadtest")));
+    }
+}
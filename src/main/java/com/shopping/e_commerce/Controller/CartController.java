@@ -33,7 +33,7 @@ public class CartController {
     public ResponseEntity<ApiResponse> getCart(@PathVariable Long cartId){
         try {
             Cart cart = cartService.getCartById(cartId);
-            return ResponseEntity.ok(new ApiResponse("Successfully got the cart", cart));
+            return ResponseEntity.ok(new ApiResponse("Successfully got the cart", cartService.convertToDto(cart)));
         } catch (ResourceNotFoundException e) {
             return ResponseEntity.status(NOT_FOUND).body(new ApiResponse(e.getMessage(),null));
         }
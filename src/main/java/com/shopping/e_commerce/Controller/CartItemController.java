@@ -5,6 +5,8 @@ import com.shopping.e_commerce.Entity.User;
 import com.shopping.e_commerce.Services.User.IUserService;
 import com.shopping.e_commerce.Services.cart.ICartItemService;
 import com.shopping.e_commerce.Services.cart.ICartService;
+import com.shopping.e_commerce.dto.CartDTO.CartItemOperation;
+import com.shopping.e_commerce.exceptions.InsufficientStockException;
 import com.shopping.e_commerce.exceptions.ResourceNotFoundException;
 import com.shopping.e_commerce.response.ApiResponse;
 import io.jsonwebtoken.JwtException;
@@ -13,6 +15,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.CONFLICT;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 import static org.springframework.http.HttpStatus.UNAUTHORIZED;
 
@@ -59,6 +65,8 @@ public class CartItemController {
             return ResponseEntity.ok(new ApiResponse("Added item successfully", null));
         } catch (ResourceNotFoundException e) {
             return ResponseEntity.status(NOT_FOUND).body(new ApiResponse(e.getMessage(),null));
+        } catch (InsufficientStockException e) {
+            return ResponseEntity.status(CONFLICT).body(new ApiResponse(e.getMessage(),null));
         }catch(JwtException e){
             return ResponseEntity.status(UNAUTHORIZED).body(new ApiResponse(e.getMessage(), null));
         }
@@ -99,9 +107,30 @@ public class CartItemController {
             return ResponseEntity.ok(new ApiResponse("Updated quantity successfully", null));
         } catch (ResourceNotFoundException e) {
             return ResponseEntity.status(NOT_FOUND).body(new ApiResponse(e.getMessage(),null));
+        } catch (InsufficientStockException e) {
+            return ResponseEntity.status(CONFLICT).body(new ApiResponse(e.getMessage(),null));
         }
     }
 
-    
-    
+    /**
+     * Applies several item changes to a cart in one request, e.g. to restore a saved list or import a quote.
+     * Either all operations are applied or none.
+     *
+     * @param cartId The ID of the cart to change
+     * @param operations The add, update and remove operations, applied in order
+     * @return ResponseEntity containing the result of the operation (success or error message)
+     */
+    @PostMapping("/cart/{cartId}/items/bulk")
+    public ResponseEntity<ApiResponse> applyItemOperations(@PathVariable Long cartId, @RequestBody List<CartItemOperation> operations){
+        try {
+            cartItemService.applyItemOperations(cartId, operations);
+            return ResponseEntity.ok(new ApiResponse("Updated cart successfully", null));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(NOT_FOUND).body(new ApiResponse(e.getMessage(),null));
+        } catch (InsufficientStockException e) {
+            return ResponseEntity.status(CONFLICT).body(new ApiResponse(e.getMessage(),null));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(BAD_REQUEST).body(new ApiResponse(e.getMessage(),null));
+        }
+    }
 }
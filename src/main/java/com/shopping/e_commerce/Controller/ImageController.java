@@ -1,24 +1,34 @@
 package com.shopping.e_commerce.Controller;
 
 import com.shopping.e_commerce.Entity.Image;
+import com.shopping.e_commerce.Repository.ImageRepository;
 import com.shopping.e_commerce.Services.image.IImageService;
-import com.shopping.e_commerce.dto.ImageDTO.ImageDto;
+import com.shopping.e_commerce.Services.image.ImageVariant;
+import com.shopping.e_commerce.dto.ImageDTO.ImageUploadResultDto;
 import com.shopping.e_commerce.exceptions.ResourceNotFoundException;
 import com.shopping.e_commerce.response.ApiResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.sql.SQLException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Optional;
 
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
@@ -34,18 +44,24 @@ public class ImageController {
     @Autowired
     private final IImageService imageService;
 
+    @Value("${images.cache.max-age-seconds:604800}")
+    private long cacheMaxAgeSeconds;
+
     /**
      * Handles uploading of multiple images for a specific product.
      *
      * @param files List of images to be uploaded (received as multipart files)
      * @param productId The ID of the product to associate the images with
-     * @return ResponseEntity containing the uploaded image details or an error message if upload fails
+     * @return ResponseEntity containing the outcome of every file, with status 207 if some of them failed
      */
     @PostMapping("/upload")
     public ResponseEntity<ApiResponse> saveImages(@RequestParam List<MultipartFile> files, @RequestParam Long productId){
         try{
-            List<ImageDto> imageDtos = imageService.saveImages(files,productId);
-            return ResponseEntity.ok(new ApiResponse("Uploaded successfully!", imageDtos));
+            List<ImageUploadResultDto> results = imageService.saveImages(files,productId);
+            if(results.stream().allMatch(ImageUploadResultDto::isSuccess)){
+                return ResponseEntity.ok(new ApiResponse("Uploaded successfully!", results));
+            }
+            return ResponseEntity.status(HttpStatus.MULTI_STATUS).body(new ApiResponse("Some images failed to upload", results));
         }catch(Exception e){
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ApiResponse("Failed to upload", e.getMessage()));
         }
@@ -53,17 +69,76 @@ public class ImageController {
 
     /**
      * Downloads an image by its ID.
+     * Images held in the image storage are streamed from disk instead of being loaded into memory.
+     * They carry their content hash as a strong ETag, so conditional requests from browsers and CDNs
+     * are answered with 304 Not Modified without reading the image at all.
+     *
+     * Range requests are answered with 206 Partial Content (multipart/byteranges for several ranges)
+     * by Spring's ResourceRegion support, which seeks to each range and streams only the requested bytes.
+     * A range is only served if the If-Range validator, when sent, still matches the current image.
+     *
+     * When a width is requested the closest pre-generated variant is served instead of the original,
+     * falling back to the original while the variants are still being generated. If the original is
+     * not wider than the requested variant, no variant is made and the original is served as final.
      *
      * @param id The ID of the image to be downloaded
+     * @param w The width in pixels the client wants, omitted for the original image
+     * @param ifRange The If-Range header, if any
+     * @param request The current request, used to evaluate If-None-Match and If-Modified-Since
      * @return ResponseEntity containing the image as a byte stream for download
-     * @throws SQLException In case of SQL issues when fetching image data
+     * @throws SQLException In case of SQL issues when fetching legacy image data
      */
     @GetMapping("/image/download/{id}")
-    public ResponseEntity<Resource> downloadImage(@PathVariable Long id) throws SQLException{
-        Image image = imageService.getImageById(id);
-        ByteArrayResource resource =  new ByteArrayResource(image.getImage().getBytes(1,(int) image.getImage().length()));
-        return ResponseEntity.ok().contentType(MediaType.parseMediaType(image.getFileType()))
-                .header(HttpHeaders.CONTENT_DISPOSITION,"attachment; filename=\"" + image.getFileName() + "\"").body(resource);
+    public ResponseEntity<Resource> downloadImage(@PathVariable Long id,
+                                                  @RequestParam(required = false) Integer w,
+                                                  @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+                                                  WebRequest request) throws SQLException, IOException {
+        ImageRepository.ImageMetadata image = imageService.getImageMetadata(id);
+        Optional<ImageVariant> variant = w == null ? Optional.empty() : imageService.getImageVariant(image, w);
+        // While a requested variant is still being generated the original stands in for it and must be revalidated
+        boolean variantPending = w != null && variant.isEmpty() && imageService.isImageVariantPending(image, w);
+        CacheControl cacheControl = variantPending ? CacheControl.noCache()
+                : CacheControl.maxAge(Duration.ofSeconds(cacheMaxAgeSeconds)).cachePublic();
+        String eTag = image.getContentHash() == null ? null
+                : "\"" + image.getContentHash() + variant.map(v -> "-w" + v.getWidth()).orElse("") + "\"";
+        long lastModified = image.getLastModified() == null ? -1 : image.getLastModified().toEpochMilli();
+
+        if(eTag != null && request.checkNotModified(eTag, lastModified)){
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(cacheControl).build();
+        }
+
+        Resource resource = variant.isPresent() ? variant.get().getContent() : imageService.getImageContent(image);
+        String fileType = variant.map(ImageVariant::getFileType).orElse(image.getFileType());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.parseMediaType(fileType))
+                .header(HttpHeaders.CONTENT_DISPOSITION,"attachment; filename=\"" + image.getFileName() + "\"");
+        if(eTag != null){
+            response.eTag(eTag).cacheControl(cacheControl);
+        }
+        if(lastModified >= 0){
+            response.lastModified(lastModified);
+        }
+        if(ifRange != null && !isRangeValid(ifRange, eTag, lastModified)){
+            // The client holds an outdated copy: send the whole image. Spring applies Range headers to every
+            // Resource body except InputStreamResource, so the content is handed over as a plain stream.
+            return response.contentLength(resource.contentLength()).body(new InputStreamResource(resource.getInputStream()));
+        }
+        return response.body(resource);
+    }
+
+    /**
+     * Checks an If-Range validator against the current image. An entity tag must match the strong ETag exactly,
+     * an HTTP date must equal the last modification time.
+     */
+    private boolean isRangeValid(String ifRange, String eTag, long lastModified){
+        if(ifRange.startsWith("\"") || ifRange.startsWith("W/")){
+            return ifRange.equals(eTag);
+        }
+        try {
+            long validatorMillis = ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return lastModified >= 0 && validatorMillis == lastModified / 1000 * 1000;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
     }
 
     /**
@@ -1,18 +1,25 @@
 package com.shopping.e_commerce.Controller;
 
 import com.shopping.e_commerce.Entity.Order;
+import com.shopping.e_commerce.Enums.OrderStatus;
 import com.shopping.e_commerce.Services.Order.IOrderService;
 import com.shopping.e_commerce.dto.OrderDTO.OrderDto;
+import com.shopping.e_commerce.dto.OrderDTO.OrderPageDto;
+import com.shopping.e_commerce.exceptions.InsufficientStockException;
 import com.shopping.e_commerce.exceptions.ResourceNotFoundException;
 import com.shopping.e_commerce.response.ApiResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.CONFLICT;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 
 /**
@@ -29,17 +36,22 @@ public class OrderController {
     private final IOrderService orderService;
 
     /**
-     * Creates an order for a specified user.
+     * Creates an order for a specified user. Retrying with the same Idempotency-Key header returns the
+     * order created by the first request instead of creating another one.
      *
      * @param userId ID of the user placing the order
+     * @param idempotencyKey Optional key identifying this checkout, chosen by the client
      * @return ResponseEntity containing the created order details or an error message if creation fails
      */
     @PostMapping("/order/add")
-    public ResponseEntity<ApiResponse> createOrder(@RequestParam Long userId){
+    public ResponseEntity<ApiResponse> createOrder(@RequestParam Long userId,
+                                                   @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey){
         try {
-            Order order = orderService.placeOrder(userId);
+            Order order = orderService.placeOrder(userId, idempotencyKey);
             OrderDto orderDto = orderService.convertToDto(order);
             return ResponseEntity.ok(new ApiResponse("Order created successfully", orderDto));
+        } catch (InsufficientStockException e) {
+            return ResponseEntity.status(CONFLICT).body(new ApiResponse(e.getMessage(), null));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ApiResponse("Error adding an order", e.getMessage()));
         }
@@ -77,5 +89,31 @@ public class OrderController {
         }
     }
 
-
+    /**
+     * Retrieves one page of a user's orders, newest first. The next page is requested by passing back the
+     * cursor of the previous page with the same filters.
+     *
+     * @param userId ID of the user whose orders are being retrieved
+     * @param from   Earliest order date included (yyyy-MM-dd), omitted for no lower bound
+     * @param to     Latest order date included (yyyy-MM-dd), omitted for no upper bound
+     * @param status Status of the orders, omitted for all
+     * @param cursor The cursor returned with the previous page, omitted for the first page
+     * @param size   The maximum number of orders on the page
+     * @return ResponseEntity containing the page of orders and the cursor of the next page
+     */
+    @GetMapping("/{userId}/orders/page")
+    public ResponseEntity<ApiResponse> getUserOrderPage(@PathVariable Long userId,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                        @RequestParam(required = false) String status,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(defaultValue = "20") int size){
+        try {
+            OrderStatus orderStatus = status == null ? null : OrderStatus.valueOf(status.toUpperCase());
+            OrderPageDto page = orderService.getUserOrderPage(userId, from, to, orderStatus, cursor, size);
+            return ResponseEntity.ok(new ApiResponse("Orders received successfully", page));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(BAD_REQUEST).body(new ApiResponse(e.getMessage(), null));
+        }
+    }
 }
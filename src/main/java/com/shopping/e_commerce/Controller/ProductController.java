@@ -1,18 +1,23 @@
 package com.shopping.e_commerce.Controller;
 
 import com.shopping.e_commerce.Entity.Product;
+import com.shopping.e_commerce.Enums.ProductSort;
 import com.shopping.e_commerce.Services.product.IProductService;
 import com.shopping.e_commerce.dto.ProductDTO.AddProductRequest;
 import com.shopping.e_commerce.dto.ProductDTO.ProductDto;
+import com.shopping.e_commerce.dto.ProductDTO.ProductPageDto;
 import com.shopping.e_commerce.dto.ProductDTO.UpdateProductRequest;
 import com.shopping.e_commerce.exceptions.AlreadyExistsException;
 import com.shopping.e_commerce.exceptions.ResourceNotFoundException;
 import com.shopping.e_commerce.response.ApiResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -50,6 +55,41 @@ public class ProductController {
         return ResponseEntity.ok(new ApiResponse("Successfully retrieved all products", convertedProducts));
     }
 
+    /**
+     * Retrieves one page of products. The next page is requested by passing back the cursor of the previous page.
+     *
+     * @param cursor The cursor returned with the previous page, omitted for the first page
+     * @param size   The maximum number of products on the page
+     * @param sort   The field the products are ordered by (id, price or name)
+     * @return ResponseEntity containing the page of products and the cursor of the next page
+     */
+    @GetMapping("/page")
+    public ResponseEntity<ApiResponse> getProductPage(@RequestParam(required = false) String cursor,
+                                                      @RequestParam(defaultValue = "20") int size,
+                                                      @RequestParam(defaultValue = "id") String sort){
+        try {
+            ProductPageDto page = productService.getProductPage(cursor, size, ProductSort.valueOf(sort.toUpperCase()));
+            return ResponseEntity.ok(new ApiResponse("Success", page));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(BAD_REQUEST).body(new ApiResponse(e.getMessage(), null));
+        }
+    }
+
+    /**
+     * Exports the whole catalog as newline-delimited JSON for feed generation.
+     * The products are written to the response as they are read, without building the full list in memory.
+     *
+     * @return ResponseEntity streaming one product per line
+     */
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportProducts(){
+        StreamingResponseBody body = productService::exportProducts;
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products.ndjson\"")
+                .body(body);
+    }
+
     /**
      * Retrieves a product by its ID.
      *
@@ -59,13 +99,27 @@ public class ProductController {
     @GetMapping("product/{id}/product")
     public ResponseEntity<ApiResponse> getProductById(@PathVariable Long id){
         try{
-            Product product = productService.getProductById(id);
-            var productDto = productService.convertToDTO(product);
+            ProductDto productDto = productService.getProductDtoById(id);
             return ResponseEntity.ok(new ApiResponse("Success", productDto));
         }catch(ResourceNotFoundException e){
             return ResponseEntity.status(NOT_FOUND).body(new ApiResponse(e.getMessage(), null));
         }
     }
+
+    /**
+     * Retrieves the stock of a product that is not held by any cart.
+     *
+     * @param id The ID of the product
+     * @return ResponseEntity containing the quantity available to sell or an error message
+     */
+    @GetMapping("product/{id}/available")
+    public ResponseEntity<ApiResponse> getAvailableToSell(@PathVariable Long id){
+        try{
+            return ResponseEntity.ok(new ApiResponse("Success", productService.getAvailableToSell(id)));
+        }catch(ResourceNotFoundException e){
+            return ResponseEntity.status(NOT_FOUND).body(new ApiResponse(e.getMessage(), null));
+        }
+    }
     /**
      * Adds a new product to the store.
      *
@@ -241,4 +295,14 @@ public class ProductController {
             return ResponseEntity.ok(new ApiResponse(e.getMessage(), null));
         }
     }
+
+    /**
+     * Retrieves the hit, miss and eviction counters of the product cache.
+     *
+     * @return ResponseEntity containing the cache counters
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<ApiResponse> getCacheStats(){
+        return ResponseEntity.ok(new ApiResponse("Success", productService.getCacheStats()));
+    }
 }
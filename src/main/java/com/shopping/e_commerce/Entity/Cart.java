@@ -1,13 +1,16 @@
 package com.shopping.e_commerce.Entity;
 
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.math.BigDecimal;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 /**
  * Cart entity representing a user's shopping cart in the e-commerce application.
@@ -20,11 +23,23 @@ import java.util.Set;
 @Entity
 public class Cart {
 
+    /**
+     * Number of incremental changes of the total after which it is checked against a full recalculation.
+     */
+    private static final int TOTAL_CHECK_INTERVAL = 64;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     private BigDecimal totalAmount = BigDecimal.ZERO;
 
+    /**
+     * Version for optimistic locking, so concurrent writers of the same cart cannot overwrite each other.
+     */
+    @Version
+    @Column(nullable = false)
+    private long version;
+
     /**
      * Set of items in the cart, each represented as a CartItem entity.
      * Configured with cascading operations and orphan removal to manage item persistence.
@@ -40,42 +55,163 @@ public class Cart {
     private User user;
 
     /**
-     * Adds a CartItem to the cart, sets its reference to this cart,
-     * and updates the total amount to reflect the addition.
+     * Indexes of the items by product ID and by item ID, built on first use.
+     * Items that have not been inserted yet are only indexed by product ID.
+     */
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Map<Long, CartItem> itemsByProductId;
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Map<Long, CartItem> itemsById;
+
+    /**
+     * Stored items removed since the cart was loaded, by product ID. Hibernate inserts before it deletes,
+     * so adding the product again reuses its row instead of inserting a duplicate (cart, product) row.
+     */
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Map<Long, CartItem> removedItems;
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int changesSinceTotalCheck;
+
+    /**
+     * Finds the item of a product in the cart.
+     *
+     * @param productId the ID of the product
+     * @return the CartItem, or null if the product is not in the cart
+     */
+    public CartItem findItemByProductId(Long productId){
+        indexItems();
+        return itemsByProductId.get(productId);
+    }
+
+    /**
+     * Finds an item of the cart by its ID.
+     *
+     * @param itemId the ID of the cart item
+     * @return the CartItem, or null if the cart has no such item
+     */
+    public CartItem findItemById(Long itemId){
+        indexItems();
+        return itemsById.get(itemId);
+    }
+
+    /**
+     * Adds a new CartItem to the cart, sets its reference to this cart,
+     * and adds its price to the total amount. If the product's stored item was
+     * removed since the cart was loaded, that item is reused with the new quantity.
      *
      * @param item the CartItem to be added to the cart
      */
     public void addItem(CartItem item){
-        this.items.add(item);
+        indexItems();
+        CartItem removed = item.getId() == null ? removedItems.remove(item.getProduct().getId()) : null;
+        if(removed != null){
+            removed.setQuantity(item.getQuantity());
+            removed.setUnitPrice(item.getUnitPrice());
+            removed.setTotalPrice();
+            item = removed;
+        }
+        if(!this.items.add(item)){
+            return;
+        }
         item.setCart(this);
-        updateTotalAmount();
+        index(item);
+        applyTotalChange(linePrice(item));
     }
 
     /**
      * Removes a CartItem from the cart, clears its reference to this cart,
-     * and updates the total amount to reflect the removal.
+     * and subtracts its price from the total amount.
      *
      * @param item the CartItem to be removed from the cart
      */
     public void removeItem(CartItem item){
-        this.items.remove(item);
+        indexItems();
+        if(!this.items.remove(item)){
+            return;
+        }
         item.setCart(null);
-        updateTotalAmount();
+        itemsByProductId.remove(item.getProduct().getId(), item);
+        if(item.getId() != null){
+            itemsById.remove(item.getId(), item);
+            removedItems.put(item.getProduct().getId(), item);
+        }
+        applyTotalChange(linePrice(item).negate());
+    }
+
+    /**
+     * Changes the quantity and unit price of an item of the cart
+     * and applies the difference of its price to the total amount.
+     *
+     * @param item the CartItem to change
+     * @param quantity the new quantity
+     * @param unitPrice the new unit price
+     */
+    public void updateItem(CartItem item, int quantity, BigDecimal unitPrice){
+        BigDecimal before = linePrice(item);
+        item.setQuantity(quantity);
+        item.setUnitPrice(unitPrice);
+        item.setTotalPrice();
+        applyTotalChange(linePrice(item).subtract(before));
     }
 
     /**
-     * Updates the total amount of the cart based on the unit price and quantity of each CartItem.
-     * Iterates over each item in the cart and calculates the sum of item prices.
+     * Recalculates the total amount of the cart from the unit price and quantity of each CartItem.
+     * Iterates over every item; the item methods of the cart keep the total up to date incrementally.
      */
-    private void updateTotalAmount(){
+    public void recalculateTotalAmount(){
+        this.totalAmount = calculateTotalAmount();
+        this.changesSinceTotalCheck = 0;
+    }
+
+    private BigDecimal calculateTotalAmount(){
         // Calculates total by multiplying unit price by quantity for each item
-        this.totalAmount = items.stream().map(item -> {
-            BigDecimal unitPrice  = item.getUnitPrice();
-            if(unitPrice == null){
-                return BigDecimal.ZERO;
-            }
-            return unitPrice.multiply(BigDecimal.valueOf(item.getQuantity()));
-        }).reduce(BigDecimal.ZERO, BigDecimal::add);
-        System.out.println("Updated Cart Total 2: " + this.totalAmount);
+        return items.stream().map(Cart::linePrice).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    /**
+     * Applies the price difference of one line to the total, and every
+     * TOTAL_CHECK_INTERVAL changes replaces it with a full recalculation, which corrects any drift.
+     */
+    private void applyTotalChange(BigDecimal delta){
+        if(totalAmount == null || ++changesSinceTotalCheck >= TOTAL_CHECK_INTERVAL){
+            recalculateTotalAmount();
+            return;
+        }
+        this.totalAmount = totalAmount.add(delta);
+    }
+
+    private static BigDecimal linePrice(CartItem item){
+        BigDecimal unitPrice  = item.getUnitPrice();
+        if(unitPrice == null){
+            return BigDecimal.ZERO;
+        }
+        return unitPrice.multiply(BigDecimal.valueOf(item.getQuantity()));
+    }
+
+    private void indexItems(){
+        if(itemsByProductId != null){
+            return;
+        }
+        itemsByProductId = new HashMap<>();
+        itemsById = new HashMap<>();
+        removedItems = new HashMap<>();
+        items.forEach(this::index);
+    }
+
+    private void index(CartItem item){
+        itemsByProductId.put(item.getProduct().getId(), item);
+        if(item.getId() != null){
+            itemsById.put(item.getId(), item);
+        }
     }
 }
@@ -18,6 +18,7 @@ import java.math.BigDecimal;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_cart_item_cart_product", columnNames = {"cart_id", "product_id"}))
 public class CartItem {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -26,6 +27,13 @@ public class CartItem {
     private BigDecimal unitPrice;
     private BigDecimal totalPrice;
 
+    /**
+     * Version for optimistic locking, so concurrent quantity changes cannot overwrite each other.
+     */
+    @Version
+    @Column(nullable = false)
+    private long version;
+
     /**
      * The product associated with this cart item.
      * Many CartItems can be associated with a single product.
@@ -6,8 +6,10 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.sql.Blob;
+import java.time.Instant;
 
 /**
  * Entity class representing an image associated with a product in the e-commerce system.
@@ -20,6 +22,8 @@ import java.sql.Blob;
 @NoArgsConstructor
 @Entity
 public class Image {
+    private static final String DOWNLOAD_URL_PREFIX = "/api/v1/images/image/download/";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -27,12 +31,23 @@ public class Image {
     private String fileType;
 
     /**
-     * Binary data representing the image itself.
-     * Stored as a Blob due to potentially large data size.
+     * Legacy binary data of the image, only set on rows that have not been migrated to the image storage yet.
      */
     @Lob
     private Blob image;
-    private String downloadUrl;
+
+    /**
+     * SHA-256 hash under which the image bytes are kept in the image storage.
+     */
+    @Column(length = 64)
+    private String contentHash;
+    private Long fileSize;
+
+    /**
+     * Time of the last change to the image, used to answer conditional download requests.
+     */
+    @UpdateTimestamp
+    private Instant lastModified;
 
     /**
      * Many-to-one relationship indicating that an image is associated with a single product.
@@ -41,4 +56,17 @@ public class Image {
     @ManyToOne
     @JoinColumn(name= "product_id")
     private Product product;
+
+    /**
+     * Download URL of the image, derived from its ID so it never has to be stored.
+     *
+     * @return the download URL, or null while the image has not been saved
+     */
+    public String getDownloadUrl(){
+        return id == null ? null : downloadUrlOf(id);
+    }
+
+    public static String downloadUrlOf(Long imageId){
+        return DOWNLOAD_URL_PREFIX + imageId;
+    }
 }
@@ -21,7 +21,10 @@ import java.util.Set;
 @Setter
 @NoArgsConstructor
 @Entity
-@Table(name = "orders")
+@Table(name = "orders",
+        uniqueConstraints = @UniqueConstraint(name = "uk_orders_user_idempotency_key", columnNames = {"user_id", "idempotency_key"}),
+        // Serves the order history pages: a user's orders newest first, filtered by date and status from the index alone
+        indexes = @Index(name = "idx_orders_user_date_id", columnList = "user_id, order_date DESC, id, order_status"))
 public class Order {
 
     @Id
@@ -33,6 +36,13 @@ public class Order {
     @Enumerated(EnumType.STRING)
     private OrderStatus orderStatus;
 
+    /**
+     * Key sent by the client with the checkout request, unique per user.
+     * A retried request with the same key returns this order instead of placing a new one.
+     */
+    @Column(name = "idempotency_key", length = 64)
+    private String idempotencyKey;
+
     /**
      * One-to-many relationship with OrderItem entities.
      * Each Order can have multiple items, and deleting an Order will
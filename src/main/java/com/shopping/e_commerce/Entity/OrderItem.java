@@ -20,8 +20,13 @@ import java.math.BigDecimal;
 @Entity
 public class OrderItem {
 
+    /**
+     * IDs are allocated in blocks from a sequence (a table on MySQL) rather than by IDENTITY,
+     * so that Hibernate can insert the items of an order in one JDBC batch.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_item_seq")
+    @SequenceGenerator(name = "order_item_seq", sequenceName = "order_item_seq", allocationSize = 50)
     private Long id;
     private int quantity;
     private BigDecimal price;
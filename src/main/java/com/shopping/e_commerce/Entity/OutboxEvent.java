@@ -0,0 +1,69 @@
+package com.shopping.e_commerce.Entity;
+
+import com.shopping.e_commerce.Enums.OutboxEventStatus;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Entity class representing an event waiting in the transactional outbox.
+ * The event is written in the same transaction as the change it describes, e.g. a placed order,
+ * and handed to its handlers by background workers once that transaction committed.
+ * Events are deleted after all handlers succeeded; events that kept failing stay behind as FAILED.
+ */
+
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "outbox_event", indexes = @Index(name = "idx_outbox_event_status_next_attempt", columnList = "status, next_attempt_at"))
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 64)
+    private String eventType;
+
+    /**
+     * The event as JSON.
+     */
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private OutboxEventStatus status;
+
+    private int attempts;
+
+    /**
+     * Time from which a worker may claim the event. Claiming moves it into the future, so an event
+     * whose worker died is picked up again once that lease has passed.
+     */
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    private Instant createdAt;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    /**
+     * Constructor for a new event that can be dispatched right away.
+     *
+     * @param eventType the type handlers register for
+     * @param payload   the event as JSON
+     */
+    public OutboxEvent(String eventType, String payload) {
+        this.eventType = eventType;
+        this.payload = payload;
+        this.status = OutboxEventStatus.PENDING;
+        this.createdAt = Instant.now();
+        this.nextAttemptAt = this.createdAt;
+    }
+}
@@ -17,6 +17,10 @@ import java.util.List;
 @Setter
 @NoArgsConstructor
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_product_price_id", columnList = "price, id"),
+        @Index(name = "idx_product_name_id", columnList = "name, id")
+})
 public class Product {
 
     @Id
@@ -0,0 +1,6 @@
+package com.shopping.e_commerce.Enums;
+
+public enum OutboxEventStatus {
+    PENDING,
+    FAILED
+}
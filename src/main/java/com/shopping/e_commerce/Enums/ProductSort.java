@@ -0,0 +1,7 @@
+package com.shopping.e_commerce.Enums;
+
+public enum ProductSort {
+    ID,
+    PRICE,
+    NAME
+}
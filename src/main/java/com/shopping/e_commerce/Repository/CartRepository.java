@@ -2,9 +2,29 @@ package com.shopping.e_commerce.Repository;
 
 import com.shopping.e_commerce.Entity.Cart;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Optional;
+
 @Repository
 public interface CartRepository extends JpaRepository<Cart, Long> {
     Cart findByUserId(Long userId);
+
+    @Query("select c.id from Cart c where c.user.id = :userId")
+    Optional<Long> findIdByUserId(@Param("userId") Long userId);
+
+    /**
+     * Loads a cart together with its items and their products in a single query.
+     *
+     * @param id the ID of the cart
+     * @return the cart, if it exists
+     */
+    @Query("select distinct c from Cart c left join fetch c.items i left join fetch i.product where c.id = :id")
+    Optional<Cart> findByIdWithItems(@Param("id") Long id);
+
+    @Query("select c.totalAmount from Cart c where c.id = :id")
+    Optional<BigDecimal> findTotalAmountById(@Param("id") Long id);
 }
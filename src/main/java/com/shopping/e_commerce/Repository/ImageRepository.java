@@ -1,14 +1,66 @@
 package com.shopping.e_commerce.Repository;
 
 import com.shopping.e_commerce.Entity.Image;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ImageRepository extends JpaRepository<Image, Long> {
 
 
     List<Image> findByProductId(Long id);
+
+    boolean existsByContentHash(String contentHash);
+
+    List<Image> findByContentHashIsNullAndImageIsNotNull(Pageable pageable);
+
+    /**
+     * Loads the image metadata of several products in a single query.
+     * Only the columns needed for an ImageDto are selected, so the image data itself is never read.
+     *
+     * @param productIds the IDs of the products whose images to load
+     * @return the image metadata of all the given products
+     */
+    @Query("select i.id as id, i.fileName as fileName, i.product.id as productId " +
+            "from Image i where i.product.id in :productIds")
+    List<ProductImageView> findImageViewsByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    /**
+     * Loads everything needed to answer a download request except the image bytes.
+     *
+     * @param id the ID of the image
+     * @return the image metadata, if the image exists
+     */
+    @Query("select i.id as id, i.fileName as fileName, i.fileType as fileType, i.contentHash as contentHash, " +
+            "i.fileSize as fileSize, i.lastModified as lastModified from Image i where i.id = :id")
+    Optional<ImageMetadata> findMetadataById(@Param("id") Long id);
+
+    /**
+     * Projection of an Image row without its binary data.
+     */
+    interface ImageMetadata {
+        Long getId();
+        String getFileName();
+        String getFileType();
+        String getContentHash();
+        Long getFileSize();
+        Instant getLastModified();
+    }
+
+    /**
+     * Projection of an Image row carrying the ID of the product it belongs to.
+     */
+    interface ProductImageView {
+        Long getId();
+        String getFileName();
+        Long getProductId();
+    }
 }
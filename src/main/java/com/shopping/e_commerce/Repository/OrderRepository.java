@@ -1,11 +1,103 @@
 package com.shopping.e_commerce.Repository;
 
 import com.shopping.e_commerce.Entity.Order;
+import com.shopping.e_commerce.Enums.OrderStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByUserId(Long userId);
+
+    Optional<Order> findByUserIdAndIdempotencyKey(Long userId, String idempotencyKey);
+
+    /**
+     * Loads the orders of a user as flat rows, one per order item, with the product name and brand joined in.
+     * Orders without items yield a single row without item columns.
+     *
+     * @param userId the ID of the user
+     * @return the rows ordered by order ID
+     */
+    @Query("select o.id as orderId, o.user.id as userId, o.orderDate as orderDate, o.totalAmount as totalAmount, " +
+            "o.orderStatus as orderStatus, i.quantity as quantity, i.price as price, " +
+            "p.id as productId, p.name as productName, p.brand as productBrand " +
+            "from Order o left join o.orderItems i left join i.product p where o.user.id = :userId order by o.id, i.id")
+    List<OrderItemRow> findOrderRowsByUserId(@Param("userId") Long userId);
+
+    /**
+     * Loads a single order as flat rows, like {@link #findOrderRowsByUserId(Long)}.
+     *
+     * @param orderId the ID of the order
+     * @return the rows of the order, empty if it does not exist
+     */
+    @Query("select o.id as orderId, o.user.id as userId, o.orderDate as orderDate, o.totalAmount as totalAmount, " +
+            "o.orderStatus as orderStatus, i.quantity as quantity, i.price as price, " +
+            "p.id as productId, p.name as productName, p.brand as productBrand " +
+            "from Order o left join o.orderItems i left join i.product p where o.id = :orderId order by i.id")
+    List<OrderItemRow> findOrderRowsById(@Param("orderId") Long orderId);
+
+    /**
+     * Keyset pagination of a user's order history, newest first and by ID within a day.
+     * Each page seeks past the (order date, ID) of the last order of the previous page instead of using OFFSET,
+     * so with the index on (user_id, order_date DESC, id) the cost of a page does not grow with the number of orders.
+     * The Pageable only carries the page size and must always point at the first page.
+     *
+     * @param userId the ID of the user
+     * @param from the earliest order date included
+     * @param afterDate the order date of the last order of the previous page, or the latest order date included
+     * @param afterId the ID of the last order of the previous page, or 0
+     * @param status the status of the orders, or null for all
+     * @return the date and ID of the orders on the page
+     */
+    @Query("select o.id as id, o.orderDate as orderDate from Order o where o.user.id = :userId and o.orderDate >= :from " +
+            "and (o.orderDate < :afterDate or (o.orderDate = :afterDate and o.id > :afterId)) " +
+            "and (:status is null or o.orderStatus = :status) order by o.orderDate desc, o.id")
+    List<OrderKey> findOrderKeyPage(@Param("userId") Long userId, @Param("from") LocalDate from,
+                                    @Param("afterDate") LocalDate afterDate, @Param("afterId") Long afterId,
+                                    @Param("status") OrderStatus status, Pageable pageable);
+
+    /**
+     * Loads several orders as flat rows, like {@link #findOrderRowsByUserId(Long)}.
+     *
+     * @param orderIds the IDs of the orders
+     * @return the rows ordered by order ID
+     */
+    @Query("select o.id as orderId, o.user.id as userId, o.orderDate as orderDate, o.totalAmount as totalAmount, " +
+            "o.orderStatus as orderStatus, i.quantity as quantity, i.price as price, " +
+            "p.id as productId, p.name as productName, p.brand as productBrand " +
+            "from Order o left join o.orderItems i left join i.product p where o.id in :orderIds order by o.id, i.id")
+    List<OrderItemRow> findOrderRowsByIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * Position of an order in the order history.
+     */
+    interface OrderKey {
+        Long getId();
+        LocalDate getOrderDate();
+    }
+
+    /**
+     * Projection of an order joined with one of its items and the item's product.
+     */
+    interface OrderItemRow {
+        Long getOrderId();
+        Long getUserId();
+        LocalDate getOrderDate();
+        BigDecimal getTotalAmount();
+        OrderStatus getOrderStatus();
+        Integer getQuantity();
+        BigDecimal getPrice();
+        Long getProductId();
+        String getProductName();
+        String getProductBrand();
+    }
 }
@@ -0,0 +1,30 @@
+package com.shopping.e_commerce.Repository;
+
+import com.shopping.e_commerce.Entity.OutboxEvent;
+import com.shopping.e_commerce.Enums.OutboxEventStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Locks the due events for the current transaction; rows locked by other workers are skipped rather than waited for
+    @Query(value = "select * from outbox_event where status = 'PENDING' and next_attempt_at <= :now " +
+            "order by next_attempt_at limit :limit for update skip locked", nativeQuery = true)
+    List<OutboxEvent> claimDue(@Param("now") Instant now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("delete from OutboxEvent e where e.id = :id")
+    void deleteEvent(@Param("id") Long id);
+
+    @Modifying
+    @Query("update OutboxEvent e set e.status = :status, e.nextAttemptAt = :nextAttemptAt, e.lastError = :error where e.id = :id")
+    void recordFailure(@Param("id") Long id, @Param("status") OutboxEventStatus status,
+                       @Param("nextAttemptAt") Instant nextAttemptAt, @Param("error") String error);
+}
@@ -0,0 +1,18 @@
+package com.shopping.e_commerce.Repository;
+
+import java.util.Map;
+
+/**
+ * Inventory updates of several products in a single statement, mixed into {@link ProductRepository}.
+ */
+public interface ProductInventoryRepository {
+
+    /**
+     * Takes the quantities out of stock with one conditional update covering all products.
+     * A product is only updated if it has at least its quantity in stock.
+     *
+     * @param quantities the quantity to take keyed by product ID
+     * @return the number of updated products, less than the number of quantities if some were short
+     */
+    int decrementInventories(Map<Long, Integer> quantities);
+}
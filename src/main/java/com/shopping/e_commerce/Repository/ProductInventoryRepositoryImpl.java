@@ -0,0 +1,38 @@
+package com.shopping.e_commerce.Repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class ProductInventoryRepositoryImpl implements ProductInventoryRepository {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public int decrementInventories(Map<Long, Integer> quantities) {
+        if(quantities.isEmpty()){
+            return 0;
+        }
+        // case p.id when :id0 then :quantity0 when :id1 then :quantity1 ... end
+        StringBuilder quantity = new StringBuilder("case p.id");
+        for(int i = 0; i < quantities.size(); i++){
+            quantity.append(" when :id").append(i).append(" then :quantity").append(i);
+        }
+        quantity.append(" end");
+        Query update = entityManager.createQuery("update Product p set p.inventory = p.inventory - " + quantity
+                + " where p.id in :ids and p.inventory >= " + quantity);
+
+        List<Long> ids = new ArrayList<>(quantities.keySet());
+        for(int i = 0; i < ids.size(); i++){
+            update.setParameter("id" + i, ids.get(i));
+            update.setParameter("quantity" + i, quantities.get(ids.get(i)));
+        }
+        update.setParameter("ids", ids);
+        return update.executeUpdate();
+    }
+}
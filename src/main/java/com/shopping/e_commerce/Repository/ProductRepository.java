@@ -1,13 +1,19 @@
 package com.shopping.e_commerce.Repository;
 
 import com.shopping.e_commerce.Entity.Product;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductInventoryRepository {
     List<Product> findByCategoryName(String category);
 
     List<Product> findByBrand(String brand);
@@ -21,4 +27,41 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     Long countByBrandAndName(String brand, String name);
 
     boolean existsByNameAndBrand(String name, String brand);
+
+    // Keyset pagination: each page seeks past the last row of the previous one instead of using OFFSET.
+    // The Pageable only carries the page size and must always point at the first page.
+    // Products without a price or name come first, as MySQL sorts NULL in ascending order anyway, so the
+    // (price, id) and (name, id) indexes still serve the order. After a NULL the seek continues with the
+    // remaining NULLs by ID and then with every non-null value.
+
+    List<Product> findAllByOrderByIdAsc(Pageable pageable);
+
+    @Query("select p from Product p order by p.price asc nulls first, p.id")
+    List<Product> findFirstPageByPrice(Pageable pageable);
+
+    @Query("select p from Product p order by p.name asc nulls first, p.id")
+    List<Product> findFirstPageByName(Pageable pageable);
+
+    @Query("select p from Product p where p.id > :afterId order by p.id")
+    List<Product> findPageAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select p from Product p where p.price > :price or (p.price = :price and p.id > :afterId) order by p.price asc nulls first, p.id")
+    List<Product> findPageAfterPrice(@Param("price") BigDecimal price, @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select p from Product p where p.price is not null or p.id > :afterId order by p.price asc nulls first, p.id")
+    List<Product> findPageAfterNullPrice(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select p from Product p where p.name > :name or (p.name = :name and p.id > :afterId) order by p.name asc nulls first, p.id")
+    List<Product> findPageAfterName(@Param("name") String name, @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select p from Product p where p.name is not null or p.id > :afterId order by p.name asc nulls first, p.id")
+    List<Product> findPageAfterNullName(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Writes back quantities already taken out of the in-memory stock of a hot SKU, the stock check happened there.
+    @Modifying(flushAutomatically = true)
+    @Query("update Product p set p.inventory = p.inventory - :quantity where p.id = :productId")
+    int subtractInventory(@Param("productId") Long productId, @Param("quantity") int quantity);
+
+    @Query("select p.inventory from Product p where p.id = :productId")
+    Optional<Integer> findInventoryById(@Param("productId") Long productId);
 }
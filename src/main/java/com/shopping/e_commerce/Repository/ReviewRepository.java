@@ -2,6 +2,33 @@ package com.shopping.e_commerce.Repository;
 
 import com.shopping.e_commerce.Entity.Review;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface ReviewRepository extends JpaRepository<Review,Long> {
+
+    /**
+     * Loads the reviews of several products in a single query without loading their users.
+     *
+     * @param productIds the IDs of the products whose reviews to load
+     * @return the reviews of all the given products
+     */
+    @Query("select r.id as id, r.rating as rating, r.name as name, r.summary as summary, r.message as message, " +
+            "r.product.id as productId from Review r where r.product.id in :productIds")
+    List<ProductReviewView> findReviewViewsByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    /**
+     * Projection of a Review row carrying the ID of the product it belongs to.
+     */
+    interface ProductReviewView {
+        Long getId();
+        Integer getRating();
+        String getName();
+        String getSummary();
+        String getMessage();
+        Long getProductId();
+    }
 }
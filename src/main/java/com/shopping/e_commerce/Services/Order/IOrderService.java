@@ -1,17 +1,22 @@
 package com.shopping.e_commerce.Services.Order;
 
 import com.shopping.e_commerce.Entity.Order;
+import com.shopping.e_commerce.Enums.OrderStatus;
 import com.shopping.e_commerce.dto.OrderDTO.OrderDto;
+import com.shopping.e_commerce.dto.OrderDTO.OrderPageDto;
 
+import java.time.LocalDate;
 import java.util.List;
 /**
  * Interface defining the operations for managing orders in the e-commerce application.
  */
 public interface IOrderService {
-    Order placeOrder(Long userId);
+    Order placeOrder(Long userId, String idempotencyKey);
     OrderDto getOrder(Long orderId);
 
     List<OrderDto> getUserOrders(Long useId);
 
+    OrderPageDto getUserOrderPage(Long userId, LocalDate from, LocalDate to, OrderStatus status, String cursor, int size);
+
     OrderDto convertToDto(Order order);
 }
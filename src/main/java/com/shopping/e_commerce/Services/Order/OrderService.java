@@ -1,6 +1,7 @@
 package com.shopping.e_commerce.Services.Order;
 
 import com.shopping.e_commerce.Entity.Cart;
+import com.shopping.e_commerce.Entity.CartItem;
 import com.shopping.e_commerce.Entity.Order;
 import com.shopping.e_commerce.Entity.OrderItem;
 import com.shopping.e_commerce.Entity.Product;
@@ -8,17 +9,40 @@ import com.shopping.e_commerce.Enums.OrderStatus;
 import com.shopping.e_commerce.Repository.OrderRepository;
 import com.shopping.e_commerce.Repository.ProductRepository;
 import com.shopping.e_commerce.Services.cart.ICartService;
+import com.shopping.e_commerce.Services.inventory.HotSkuInventory;
+import com.shopping.e_commerce.Services.outbox.OutboxService;
+import com.shopping.e_commerce.Services.product.ProductCache;
 import com.shopping.e_commerce.dto.OrderDTO.OrderDto;
+import com.shopping.e_commerce.dto.OrderDTO.OrderItemDto;
+import com.shopping.e_commerce.dto.OrderDTO.OrderPageDto;
+import com.shopping.e_commerce.dto.OrderDTO.OrderPlacedEvent;
+import com.shopping.e_commerce.exceptions.InsufficientStockException;
 import com.shopping.e_commerce.exceptions.ResourceNotFoundException;
+import com.shopping.e_commerce.mapper.OrderMapper;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Service class for managing orders in the e-commerce application.
@@ -28,6 +52,11 @@ import java.util.List;
 @RequiredArgsConstructor
 public class OrderService implements IOrderService{
 
+    private static final int MAX_PAGE_SIZE = 100;
+    // Bounds of the MySQL DATE type, used for open ends of the date range
+    private static final LocalDate FIRST_ORDER_DATE = LocalDate.of(1000, 1, 1);
+    private static final LocalDate LAST_ORDER_DATE = LocalDate.of(9999, 12, 31);
+
     @Autowired
     private final OrderRepository orderRepository;
     @Autowired
@@ -35,27 +64,142 @@ public class OrderService implements IOrderService{
     @Autowired
     private final ICartService cartService;
     @Autowired
-    private final ModelMapper modelMapper;
+    private final OrderMapper orderMapper;
+    @Autowired
+    private final ProductCache productCache;
+    @Autowired
+    private final HotSkuInventory hotSkuInventory;
+    @Autowired
+    private final TransactionTemplate transactionTemplate;
+    @Autowired
+    private final OutboxService outboxService;
 
     /**
-     * Places a new order for the user.
+     * Places a new order for the user. Checkout runs in one transaction: the inventory of every ordered product
+     * is reserved, the order is inserted with its items, an OrderPlaced event is written to the outbox and the
+     * cart is cleared, so a shortfall on any line rolls back the whole order. Side effects of the order are run
+     * by the handlers of the event after the transaction committed.
+     * A request repeated with the same idempotency key returns the order placed by the first one instead of
+     * placing a new one.
      *
      * @param userId the ID of the user placing the order
+     * @param idempotencyKey key chosen by the client for this checkout, or null
      * @return the saved Order object
+     * @throws InsufficientStockException if a product does not have enough inventory left
+     * @throws ResourceNotFoundException if the user has no cart
      */
     @Override
-    public Order placeOrder(Long userId) {
-        Cart cart = cartService.getCartByUserId(userId);
+    public Order placeOrder(Long userId, String idempotencyKey) {
+        if(idempotencyKey != null){
+            Optional<Order> placed = orderRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey);
+            if(placed.isPresent()){
+                return placed.get();
+            }
+        }
+        try {
+            return transactionTemplate.execute(status -> checkout(userId, idempotencyKey));
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent request with the same key committed its order first
+            if(idempotencyKey == null){
+                throw e;
+            }
+            return orderRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey).orElseThrow(() -> e);
+        }
+    }
+
+    private Order checkout(Long userId, String idempotencyKey){
+        Cart cart = Optional.ofNullable(cartService.getCartForCheckout(userId))
+                .orElseThrow(() -> new ResourceNotFoundException("Cart not found"));
+        reserveInventory(cart);
         Order order = createOrder(cart);
+        order.setIdempotencyKey(idempotencyKey);
         List<OrderItem> orderItemList = createOrderItems(order, cart);
         order.setOrderItems(new HashSet<>(orderItemList));
         order.setTotalAmount(calcTotalPrice(orderItemList));
         Order savedOrder = orderRepository.save(order);
+        outboxService.publish(OrderPlacedEvent.TYPE, new OrderPlacedEvent(savedOrder.getId(), userId,
+                savedOrder.getOrderDate(), savedOrder.getTotalAmount()));
 
         cartService.clearCart(cart.getId());
 
         return savedOrder;
     }
+
+    /**
+     * Takes the quantities of the cart out of stock with a single conditional update covering all products,
+     * which only changes the products that have enough stock left. Hot SKUs are taken from their in-memory
+     * stock instead, and put back if the order is rolled back.
+     *
+     * @param cart the Cart being checked out
+     * @throws InsufficientStockException if a product does not have enough inventory left
+     */
+    private void reserveInventory(Cart cart){
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for(CartItem cartItem : cart.getItems()){
+            quantities.merge(cartItem.getProduct().getId(), cartItem.getQuantity(), Integer::sum);
+        }
+        Map<Long, Integer> fromDatabase = new TreeMap<>();
+        Map<Long, Integer> hotReserved = new HashMap<>();
+        try {
+            quantities.forEach((productId, quantity) -> {
+                if(!hotSkuInventory.isHot(productId)){
+                    fromDatabase.put(productId, quantity);
+                }else if(hotSkuInventory.tryReserve(productId, quantity)){
+                    hotReserved.put(productId, quantity);
+                }else{
+                    throw new InsufficientStockException("Not enough inventory for product " + productId);
+                }
+            });
+            if(productRepository.decrementInventories(fromDatabase) < fromDatabase.size()){
+                // The transaction is rolled back, undoing the products that were updated
+                throw new InsufficientStockException("Not enough inventory for products " + fromDatabase.keySet());
+            }
+        } catch (RuntimeException e) {
+            hotReserved.forEach(hotSkuInventory::release);
+            throw e;
+        }
+        releaseOnRollback(hotReserved);
+        evictAfterCommit(quantities.keySet());
+    }
+
+    /**
+     * Evicts the products from the cache once the transaction of the order has committed. Evicting earlier
+     * would let a concurrent read cache the inventory from before the order again.
+     *
+     * @param productIds the IDs of the products whose inventory changed
+     */
+    private void evictAfterCommit(Collection<Long> productIds){
+        if(!TransactionSynchronizationManager.isSynchronizationActive()){
+            productIds.forEach(productCache::evict);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                productIds.forEach(productCache::evict);
+            }
+        });
+    }
+
+    /**
+     * Puts the in-memory stock taken for hot SKUs back if the transaction of the order does not commit.
+     *
+     * @param hotReserved the reserved quantities keyed by product ID
+     */
+    private void releaseOnRollback(Map<Long, Integer> hotReserved){
+        if(hotReserved.isEmpty() || !TransactionSynchronizationManager.isSynchronizationActive()){
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if(status != STATUS_COMMITTED){
+                    hotReserved.forEach(hotSkuInventory::release);
+                }
+            }
+        });
+    }
+
     /**
      * Creates a new Order object based on the provided Cart.
      *
@@ -80,8 +224,6 @@ public class OrderService implements IOrderService{
     private List<OrderItem> createOrderItems(Order order, Cart cart){
         return cart.getItems().stream().map(cartItem -> {
             Product product = cartItem.getProduct();
-            product.setInventory(product.getInventory() - cartItem.getQuantity());
-            productRepository.save(product);
             return new OrderItem(cartItem.getQuantity(),cartItem.getUnitPrice(),order, product);
         }).toList();
     }
@@ -92,12 +234,12 @@ public class OrderService implements IOrderService{
      * @param orderItemList the list of OrderItems
      * @return the total amount as a BigDecimal
      */
-    private BigDecimal calcTotalPrice(List<OrderItem> orderItemList){
+    BigDecimal calcTotalPrice(List<OrderItem> orderItemList){
         return orderItemList.stream().map(item ->item.getPrice().multiply(new BigDecimal(item.getQuantity()))).reduce(BigDecimal.ZERO,BigDecimal::add);
     }
 
     /**
-     * Retrieves an Order by its ID.
+     * Retrieves an Order by its ID with a single query.
      *
      * @param orderId the ID of the order to retrieve
      * @return the corresponding OrderDto
@@ -105,20 +247,110 @@ public class OrderService implements IOrderService{
      */
     @Override
     public OrderDto getOrder(Long orderId) {
-        return orderRepository.findById(orderId)
-                .map(this::convertToDto).orElseThrow(() -> new ResourceNotFoundException("Order not found"));
+        return toOrderDtos(orderRepository.findOrderRowsById(orderId)).stream().findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException("Order not found"));
     }
 
     /**
      * Retrieves all orders associated with a specific user.
+     * The orders, their items and the items' products are read with a single query.
      *
      * @param userId the ID of the user whose orders to retrieve
      * @return a list of OrderDto objects for the user
      */
     @Override
     public List<OrderDto> getUserOrders(Long userId){
-        List<Order> orders = orderRepository.findByUserId(userId);
-        return orders.stream().map(this::convertToDto).toList();
+        return toOrderDtos(orderRepository.findOrderRowsByUserId(userId));
+    }
+
+    /**
+     * Retrieves one page of a user's order history, newest first, optionally limited to a date range and a status.
+     * The page is found by seeking past the last order of the previous page on the (user, order date, ID) index,
+     * and its orders are then loaded with one query, so a page costs two queries however many orders the user has.
+     *
+     * @param userId the ID of the user whose orders to retrieve
+     * @param from the earliest order date included, or null
+     * @param to the latest order date included, or null
+     * @param status the status of the orders, or null for all
+     * @param cursor the opaque cursor returned with the previous page, or null for the first page
+     * @param size the maximum number of orders on the page
+     * @return the page of orders and the cursor of the next page, which is null on the last page
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    @Override
+    public OrderPageDto getUserOrderPage(Long userId, LocalDate from, LocalDate to, OrderStatus status, String cursor, int size){
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        LocalDate afterDate = to == null ? LAST_ORDER_DATE : to;
+        long afterId = 0;
+        if(cursor != null && !cursor.isBlank()){
+            String[] position = decodeCursor(cursor);
+            afterDate = LocalDate.parse(position[0]);
+            afterId = Long.parseLong(position[1]);
+        }
+        // Fetch one extra order to find out whether there is a next page
+        List<OrderRepository.OrderKey> keys = orderRepository.findOrderKeyPage(userId, from == null ? FIRST_ORDER_DATE : from,
+                afterDate, afterId, status, PageRequest.of(0, pageSize + 1));
+
+        String nextCursor = null;
+        if(keys.size() > pageSize){
+            keys = keys.subList(0, pageSize);
+            OrderRepository.OrderKey last = keys.get(pageSize - 1);
+            nextCursor = encodeCursor(last.getOrderDate(), last.getId());
+        }
+        if(keys.isEmpty()){
+            return new OrderPageDto(List.of(), null);
+        }
+        Map<Long, OrderDto> orders = toOrderDtos(orderRepository.findOrderRowsByIdIn(keys.stream().map(OrderRepository.OrderKey::getId).toList()))
+                .stream().collect(Collectors.toMap(OrderDto::getId, Function.identity()));
+        return new OrderPageDto(keys.stream().map(key -> orders.get(key.getId())).toList(), nextCursor);
+    }
+
+    private String encodeCursor(LocalDate orderDate, Long id){
+        String position = orderDate + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor){
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", 2);
+            LocalDate.parse(position[0]);
+            Long.parseLong(position[1]);
+            return position;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Groups flat order rows into OrderDtos, keeping the order of the rows.
+     *
+     * @param rows the rows, those of one order next to each other
+     * @return the orders with their items
+     */
+    private List<OrderDto> toOrderDtos(List<OrderRepository.OrderItemRow> rows){
+        Map<Long, OrderDto> orders = new LinkedHashMap<>();
+        for(OrderRepository.OrderItemRow row : rows){
+            OrderDto orderDto = orders.computeIfAbsent(row.getOrderId(), id -> {
+                OrderDto dto = new OrderDto();
+                dto.setId(id);
+                dto.setUserId(row.getUserId());
+                dto.setOrderDate(row.getOrderDate());
+                dto.setTotalAmount(row.getTotalAmount());
+                dto.setOrderStatus(row.getOrderStatus() == null ? null : row.getOrderStatus().name());
+                dto.setItems(new ArrayList<>());
+                return dto;
+            });
+            if(row.getQuantity() != null){
+                OrderItemDto itemDto = new OrderItemDto();
+                itemDto.setProductId(row.getProductId());
+                itemDto.setProductName(row.getProductName());
+                itemDto.setProductBrand(row.getProductBrand());
+                itemDto.setQuantity(row.getQuantity());
+                itemDto.setPrice(row.getPrice());
+                orderDto.getItems().add(itemDto);
+            }
+        }
+        return new ArrayList<>(orders.values());
     }
 
 
@@ -130,6 +362,6 @@ public class OrderService implements IOrderService{
      */
     @Override
     public OrderDto convertToDto(Order order){
-        return modelMapper.map(order, OrderDto.class);
+        return orderMapper.toDto(order);
     }
 }
@@ -8,8 +8,8 @@ import com.shopping.e_commerce.dto.OrderDTO.OrderDto;
 import com.shopping.e_commerce.dto.ShippingInformationDTO.ShippingDto;
 import com.shopping.e_commerce.exceptions.ResourceNotFoundException;
 import com.shopping.e_commerce.exceptions.UnauthenticatedUserException;
+import com.shopping.e_commerce.mapper.ShippingMapper;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
@@ -24,7 +24,7 @@ public class ShippingInformationService  implements IShippingInformationService{
 
     private final ShippingInformationRepository shippingInformationRepository;
 
-    private final ModelMapper modelMapper;
+    private final ShippingMapper shippingMapper;
 
     /**
      * Adds a new shipping address for the specified user.
@@ -106,7 +106,7 @@ public class ShippingInformationService  implements IShippingInformationService{
     @Override
     public ShippingDto convertToDto(ShippingInformation shippingInformation) {
         {
-            return modelMapper.map(shippingInformation, ShippingDto.class);
+            return shippingMapper.toDto(shippingInformation);
         }
     }
 }
@@ -10,9 +10,9 @@ import com.shopping.e_commerce.dto.UserDTO.UserDto;
 import com.shopping.e_commerce.dto.UserDTO.updateUserRequest;
 import com.shopping.e_commerce.exceptions.AlreadyExistsException;
 import com.shopping.e_commerce.exceptions.ResourceNotFoundException;
+import com.shopping.e_commerce.mapper.UserMapper;
 import com.shopping.e_commerce.security.user.ShoppingUserDetails;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -33,7 +33,7 @@ public class UserService implements IUserService{
     @Autowired
     private final UserRepository userRepository;
     @Autowired
-    private final ModelMapper modelMapper;
+    private final UserMapper userMapper;
 
     @Autowired
     private final PasswordEncoder passwordEncoder;
@@ -138,34 +138,17 @@ public class UserService implements IUserService{
 
     /**
      * Converts a User object to a UserDto.
+     * Orders, cart and reviews are not included, they are read through their own endpoints.
      *
      * @param user the User object to convert
      * @return the converted UserDto object
      */
     @Override
     public UserDto convertUserToDto(User user){
-        UserDto userDto = modelMapper.map(user, UserDto.class);
+        UserDto userDto = userMapper.toDto(user);
 
-        // If orders are null, set it to an empty list (optional, based on your preference)
-        if (userDto.getOrders() == null || userDto.getOrders().isEmpty()) {
-            userDto.setOrders(null);
-        }
-
-        // If cart is null, set it to null (this should already be happening by default)
-        if (userDto.getCart() == null) {
-            userDto.setCart(null);
-        }
-
-        if (userDto.getReviews() == null || userDto.getReviews().isEmpty()) {
-            userDto.setReviews(null);
-        }
-
-        if(userDto.getBilling() == null){
-            userDto.setBilling(null);
-        }
-
-        // If shippingInformations is empty or null, set it to null explicitly
-        if (userDto.getShippingInformations() == null || userDto.getShippingInformations().isEmpty()) {
+        // If shippingInformations is empty, set it to null explicitly
+        if (userDto.getShippingInformations() != null && userDto.getShippingInformations().isEmpty()) {
             userDto.setShippingInformations(null);
         }
 
@@ -7,9 +7,9 @@ import com.shopping.e_commerce.Repository.BillingRepository;
 import com.shopping.e_commerce.dto.BillingDTO.BillingDto;
 import com.shopping.e_commerce.dto.ShippingInformationDTO.ShippingDto;
 import com.shopping.e_commerce.exceptions.ResourceNotFoundException;
+import com.shopping.e_commerce.mapper.BillingMapper;
 import lombok.RequiredArgsConstructor;
 import org.apache.tomcat.websocket.AuthenticationException;
-import org.modelmapper.ModelMapper;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
@@ -23,7 +23,7 @@ import org.springframework.stereotype.Service;
 public class billingService implements IBillingService{
 
     private final BillingRepository billingRepository;
-    private final ModelMapper modelMapper;
+    private final BillingMapper billingMapper;
 
     /**
      * Adds new billing information for a user.
@@ -80,7 +80,7 @@ public class billingService implements IBillingService{
     @Override
     public BillingDto convertToDto(Billing billing) {
         {
-            return modelMapper.map(billing, BillingDto.class);
+            return billingMapper.toDto(billing);
         }
     }
 }
@@ -3,15 +3,26 @@ package com.shopping.e_commerce.Services.cart;
 import com.shopping.e_commerce.Entity.Cart;
 import com.shopping.e_commerce.Entity.CartItem;
 import com.shopping.e_commerce.Entity.Product;
-import com.shopping.e_commerce.Repository.CartItemRepository;
-import com.shopping.e_commerce.Repository.CartRepository;
+import com.shopping.e_commerce.Enums.CartItemOperationType;
+import com.shopping.e_commerce.Services.inventory.HotSkuInventory;
+import com.shopping.e_commerce.Services.inventory.InventoryHolds;
 import com.shopping.e_commerce.Services.product.IProductService;
+import com.shopping.e_commerce.dto.CartDTO.CartItemOperation;
+import com.shopping.e_commerce.exceptions.InsufficientStockException;
 import com.shopping.e_commerce.exceptions.ResourceNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 /**
  * Service class for managing cart items in the e-commerce application.
  * Implements the ICartItemService interface to define cart item-related operations.
@@ -21,47 +32,118 @@ import java.math.BigDecimal;
 @RequiredArgsConstructor
 public class CartItemService implements ICartItemService{
 
-    @Autowired
-    private final CartItemRepository cartItemRepository;
-    @Autowired
-    private final CartRepository cartRepository;
     @Autowired
     private final IProductService productService;
     @Autowired
     private final ICartService cartService;
+    @Autowired
+    private final CartStore cartStore;
+    @Autowired
+    private final InventoryHolds inventoryHolds;
+    @Autowired
+    private final HotSkuInventory hotSkuInventory;
 
     /**
      * Adds an item to the cart. If the item already exists, its quantity is updated.
+     * When inventory holds are enabled, the new quantity of the item is held for the cart.
      *
      * @param cartId the ID of the cart
      * @param productId the ID of the product to add
      * @param quantity the quantity of the product to add
+     * @throws InsufficientStockException if the product does not have enough stock available
      */
     @Override
     public void addItemToCart(Long cartId, Long productId, int quantity) {
-        //Get the cart
-        Cart cart = cartService.getCartById(cartId);
-        //Get the product
+        //Get the product, before taking the cart's lock
         Product product = productService.getProductById(productId);
+        updateCart(cartId, (cart, holds) -> {
+            // Hold the stock before changing the cart, so a refused hold leaves the cart as it was
+            CartItem cartItem = cart.findItemByProductId(productId);
+            int newQuantity = (cartItem == null ? 0 : cartItem.getQuantity()) + quantity;
+            // The cached product's inventory may be stale, the hold reads the current one
+            holds.hold(Map.of(productId, newQuantity), productService::getInventory);
+            addProduct(cart, product, quantity);
+        });
+    }
+
+    /**
+     * Applies a list of add, update and remove operations to a cart in one go.
+     * The cart is loaded once, all referenced products are fetched with a single query,
+     * and the changed cart is written in a single transaction. The operations are checked
+     * before any of them is applied, so either all of them take effect or none.
+     *
+     * @param cartId the ID of the cart
+     * @param operations the operations, applied in order
+     * @throws ResourceNotFoundException if a product does not exist, or is not in the cart when updated or removed
+     * @throws IllegalArgumentException if an operation is incomplete
+     * @throws InsufficientStockException if a product does not have enough stock available for its new quantity
+     */
+    @Override
+    public void applyItemOperations(Long cartId, List<CartItemOperation> operations) {
+        operations.forEach(operation -> {
+            if(operation.getType() == null || operation.getProductId() == null
+                    || (operation.getType() != CartItemOperationType.REMOVE && (operation.getQuantity() == null || operation.getQuantity() < 0))){
+                throw new IllegalArgumentException("Each operation needs a type, a product ID and, unless it is a removal, a quantity");
+            }
+        });
+        Set<Long> productIds = operations.stream().map(CartItemOperation::getProductId).collect(Collectors.toSet());
+        Map<Long, Product> products = productService.getProductsByIds(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        if(products.size() != productIds.size()){
+            throw new ResourceNotFoundException("Product not found");
+        }
+
+        updateCart(cartId, (cart, holds) -> {
+            // Replay the operations on the quantities first, so nothing changes if one of them cannot apply.
+            // A product maps to its quantity after the operations so far, or to null once it was removed
+            Map<Long, Integer> quantities = new HashMap<>();
+            operations.forEach(operation -> {
+                Long productId = operation.getProductId();
+                CartItem item = cart.findItemByProductId(productId);
+                Integer current = quantities.containsKey(productId) ? quantities.get(productId) : (item == null ? null : item.getQuantity());
+                if(operation.getType() != CartItemOperationType.ADD && current == null){
+                    throw new ResourceNotFoundException("Item not found");
+                }
+                switch (operation.getType()) {
+                    case ADD -> quantities.put(productId, (current == null ? 0 : current) + operation.getQuantity());
+                    case UPDATE -> quantities.put(productId, operation.getQuantity());
+                    case REMOVE -> quantities.put(productId, null);
+                }
+            });
+            Map<Long, Integer> held = new HashMap<>();
+            quantities.forEach((productId, quantity) -> held.put(productId, quantity == null ? 0 : quantity));
+            // The products were just read from the database, so their inventory is current unless
+            // they are hot SKUs, whose sales reach the database later
+            holds.hold(held, productId -> hotSkuInventory.isHot(productId)
+                    ? productService.getInventory(productId) : products.get(productId).getInventory());
+
+            operations.forEach(operation -> {
+                Product product = products.get(operation.getProductId());
+                CartItem item = cart.findItemByProductId(product.getId());
+                switch (operation.getType()) {
+                    case ADD -> addProduct(cart, product, operation.getQuantity());
+                    case UPDATE -> cart.updateItem(item, operation.getQuantity(), product.getPrice());
+                    case REMOVE -> cart.removeItem(item);
+                }
+            });
+        });
+    }
+
+    private void addProduct(Cart cart, Product product, int quantity){
         //Check if the product already in the cart
-        CartItem cartItem = cart.getItems()
-                .stream()
-                .filter(item -> item.getProduct().getId().equals(productId))
-                .findFirst().orElse(new CartItem());
+        CartItem cartItem = cart.findItemByProductId(product.getId());
         //if yes then increase the quantity with the requested quantity
-        //if no then initiate a new cart item entry
-        if(cartItem.getId() == null){
-            cartItem.setCart(cart);
+        //if no then initiate a new cart item entry, it is inserted when the cart is written
+        if(cartItem == null){
+            cartItem = new CartItem();
             cartItem.setProduct(product);
             cartItem.setQuantity(quantity);
             cartItem.setUnitPrice(product.getPrice());
+            cartItem.setTotalPrice();
+            cart.addItem(cartItem);
         }else{
-            cartItem.setQuantity(cartItem.getQuantity() + quantity);
+            cart.updateItem(cartItem, cartItem.getQuantity() + quantity, cartItem.getUnitPrice());
         }
-        cartItem.setTotalPrice();
-        cart.addItem(cartItem);
-        cartItemRepository.save(cartItem);
-        cartRepository.save(cart);
     }
 
     /**
@@ -72,15 +154,16 @@ public class CartItemService implements ICartItemService{
      */
     @Override
     public void deleteItemFromCart(Long cartId, Long itemId) {
-        Cart cart = cartService.getCartById(cartId);
-        CartItem itemToDelete = getCartItem(cartId,itemId);
-        System.out.println("item to delete:" + itemToDelete.getProduct().getName());
-        cart.removeItem(itemToDelete);
-        cartRepository.save(cart);
+        updateCart(cartId, (cart, holds) -> {
+            CartItem itemToDelete = findItem(cart, itemId);
+            System.out.println("item to delete:" + itemToDelete.getProduct().getName());
+            holds.hold(Map.of(itemToDelete.getProduct().getId(), 0), productId -> 0);
+            cart.removeItem(itemToDelete);
+        });
     }
     /**
      * Updates the quantity of an item in the cart.
-     * This method does not update the total price of the cart.
+     * The total price of the cart is adjusted by the difference of the item's price.
      *
      * @param cartId the ID of the cart
      * @param productId the ID of the product to update
@@ -88,32 +171,32 @@ public class CartItemService implements ICartItemService{
      */
     @Override
     public void updateItemQuantity(Long cartId, Long productId, int quantity) {
-        // Get the cart by ID
-        Cart cart = cartService.getCartById(cartId);
-        System.out.println("CartId: " + cartId + " productId: " + productId + " quantity: " + quantity + " generated cart selection total amount:" + cart.getTotalAmount());
+        updateCart(cartId, (cart, holds) -> {
+            System.out.println("CartId: " + cartId + " productId: " + productId + " quantity: " + quantity + " generated cart selection total amount:" + cart.getTotalAmount());
 
-        // Print details of items in the cart for debugging
-        cart.getItems().forEach(item -> {
-            System.out.println("---CartItem ID: " + item.getId() + ", Product ID: " + item.getProduct().getId());
+            // Update the quantity of the specified cart item
+            CartItem item = cart.findItemById(productId);
+            if(item != null){
+                Product product = item.getProduct();
+                holds.hold(Map.of(product.getId(), quantity), productService::getInventory);
+                cart.updateItem(item, quantity, product.getPrice());
+                System.out.println("Service: " + item.getUnitPrice());
+            }
         });
+    }
 
-        // Update the quantity of the specified cart item
-        cart.getItems()
-                .stream()
-                .filter(item -> item.getId().equals(productId))
-                .findFirst()
-                .ifPresent(item -> {
-                    item.setQuantity(quantity);
-                    item.setUnitPrice(item.getProduct().getPrice());
-                    item.setTotalPrice();
-                    System.out.println("Service: " + item.getUnitPrice());
-                });
-        // Recalculate total amount for the cart
-        BigDecimal totalAmount = cart.getItems().stream().map(CartItem::getTotalPrice).reduce(BigDecimal.ZERO, BigDecimal::add);
-        cart.setTotalAmount(totalAmount);
-        // Save the updated cart to the database
-        cartRepository.save(cart);
-
+    /**
+     * Applies a change that holds stock to a cart. The holds are taken while the cart is changed, so when
+     * the cart cannot be written they are set back to what the cart held before.
+     */
+    private void updateCart(Long cartId, BiConsumer<Cart, CartHolds> change){
+        CartHolds holds = new CartHolds(cartId);
+        try {
+            cartStore.update(cartId, cart -> change.accept(cart, holds));
+        } catch (RuntimeException e) {
+            holds.restore();
+            throw e;
+        }
     }
 
     /**
@@ -131,9 +214,32 @@ public class CartItemService implements ICartItemService{
 
         // Find the cart item in the cart
         System.out.println("Get cart details:" + cart.getId() + " price:" + cart.getTotalAmount());
-        return cart.getItems()
-                .stream()
-                .filter(item -> item.getId().equals(itemId))
-                .findFirst().orElseThrow(() -> new ResourceNotFoundException("Item not found"));
+        return findItem(cart, itemId);
+    }
+
+    private CartItem findItem(Cart cart, Long itemId){
+        return Optional.ofNullable(cart.findItemById(itemId)).orElseThrow(() -> new ResourceNotFoundException("Item not found"));
+    }
+
+    /**
+     * The holds taken by one change of a cart. A store may apply the change more than once, so the quantities
+     * held before the first attempt are kept.
+     */
+    private class CartHolds {
+        private final Long cartId;
+        private final Map<Long, Integer> previous = new HashMap<>();
+
+        private CartHolds(Long cartId) {
+            this.cartId = cartId;
+        }
+
+        private void hold(Map<Long, Integer> quantities, Function<Long, Integer> inventory){
+            inventoryHolds.getHeld(cartId, quantities.keySet()).forEach(previous::putIfAbsent);
+            inventoryHolds.hold(cartId, quantities, inventory);
+        }
+
+        private void restore(){
+            inventoryHolds.restore(cartId, previous);
+        }
     }
 }
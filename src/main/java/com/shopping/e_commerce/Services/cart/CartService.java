@@ -2,13 +2,17 @@ package com.shopping.e_commerce.Services.cart;
 
 import com.shopping.e_commerce.Entity.Cart;
 import com.shopping.e_commerce.Entity.User;
-import com.shopping.e_commerce.Repository.CartItemRepository;
 import com.shopping.e_commerce.Repository.CartRepository;
+import com.shopping.e_commerce.Services.inventory.InventoryHolds;
+import com.shopping.e_commerce.dto.CartDTO.CartDto;
 import com.shopping.e_commerce.exceptions.ResourceNotFoundException;
-import jakarta.transaction.Transactional;
+import com.shopping.e_commerce.mapper.CartMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.util.Optional;
@@ -26,12 +30,19 @@ public class CartService implements ICartService{
     private final CartRepository cartRepository;
 
     @Autowired
-    private final CartItemRepository cartItemRepository;
+    private final CartStore cartStore;
+
+    @Autowired
+    private final InventoryHolds inventoryHolds;
+
+    @Autowired
+    private final CartMapper cartMapper;
 
     private final AtomicLong cartIdGenerator = new AtomicLong(0);
 
     /**
-     * Retrieves a cart by its ID. Throws an exception if not found.
+     * Retrieves a cart by its ID with its items and their products from the cart store. Throws an exception if not found.
+     * The returned cart is a snapshot; changes must go through the cart store.
      *
      * @param id the ID of the cart
      * @return the Cart object
@@ -39,29 +50,60 @@ public class CartService implements ICartService{
      */
     @Override
     public Cart getCartById(Long id) {
-        // Find the cart by ID, or throw an exception if not found
-        Cart cart  = cartRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Cart not found"));
-        // Ensure the total amount is updated and return the cart
-        BigDecimal totalAmount = cart.getTotalAmount();
-        cart.setTotalAmount(totalAmount);
-        return cartRepository.save(cart);
+        return cartStore.getCart(id);
+    }
+
+    /**
+     * Retrieves the cart of a user for checkout. Pending changes of the cart are written to the
+     * database first, so the returned cart reflects everything the user added.
+     *
+     * @param userId the ID of the user
+     * @return the Cart object, or null if the user has no cart
+     * @throws RuntimeException if the pending changes could not be written; checkout must not go on with a stale cart
+     */
+    @Override
+    @Transactional
+    public Cart getCartForCheckout(Long userId) {
+        return cartRepository.findIdByUserId(userId).map(id -> {
+            cartStore.flush(id);
+            return cartRepository.findByIdWithItems(id).orElse(null);
+        }).orElse(null);
     }
 
     /**
      * Clears all items from the cart and deletes the cart from the database.
+     * The stock held for the cart is released once the deletion has committed.
      *
      * @param id the ID of the cart to clear
      */
     @Transactional
     @Override
     public void clearCart(Long id) {
-        // Get the cart by ID
-        Cart cart = getCartById(id);
-        // Delete all items associated with the cart
-        cartItemRepository.deleteAllByCartId(id);
-        // Clear the cart's items and delete the cart
-        cart.getItems().clear();
-        cartRepository.deleteById(id);
+        // Drop the cart from the store first so pending changes are not written back
+        cartStore.remove(id);
+        Cart cart = cartRepository.findByIdWithItems(id).orElseThrow(() -> new ResourceNotFoundException("Cart not found"));
+        // Deleting the loaded cart cascades to its items, each deleted once with its version checked
+        cartRepository.delete(cart);
+        releaseHoldsAfterCommit(id);
+    }
+
+    /**
+     * Releases the holds of a cart after the transaction commits. Releasing them earlier would let other carts
+     * take the stock while the cart, if the deletion rolls back, still holds it.
+     *
+     * @param id the ID of the cart
+     */
+    private void releaseHoldsAfterCommit(Long id){
+        if(!TransactionSynchronizationManager.isSynchronizationActive()){
+            inventoryHolds.releaseCart(id);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                inventoryHolds.releaseCart(id);
+            }
+        });
     }
 
     /**
@@ -72,9 +114,8 @@ public class CartService implements ICartService{
      */
     @Override
     public BigDecimal getTotalPrice(Long id) {
-        // Get the cart and return its total amount
-        Cart cart = getCartById(id);
-        return cart.getTotalAmount();
+        // Read only the total, the items are not needed
+        return cartStore.getTotalAmount(id);
     }
 
     /**
@@ -103,4 +144,15 @@ public class CartService implements ICartService{
     public Cart getCartByUserId(Long userId) {
         return cartRepository.findByUserId(userId);
     }
+
+    /**
+     * Converts a Cart object to a CartDto, with its items and their products.
+     *
+     * @param cart the Cart object to convert, with its items and their products loaded
+     * @return the converted CartDto object
+     */
+    @Override
+    public CartDto convertToDto(Cart cart) {
+        return cartMapper.toDto(cart);
+    }
 }
@@ -0,0 +1,20 @@
+package com.shopping.e_commerce.Services.cart;
+
+import com.shopping.e_commerce.Entity.Cart;
+
+import java.math.BigDecimal;
+import java.util.function.Consumer;
+
+/**
+ * Storage of carts that are being shopped with, keyed by cart ID (each user has exactly one cart).
+ * Implementations decide when changes reach the database; callers must {@link #flush(Long)} a cart
+ * before reading it from the database directly, as checkout does. A flush that cannot write the cart throws.
+ */
+public interface CartStore {
+    Cart getCart(Long cartId);
+    BigDecimal getTotalAmount(Long cartId);
+    void update(Long cartId, Consumer<Cart> change);
+    void flush(Long cartId);
+    void flushAll();
+    void remove(Long cartId);
+}
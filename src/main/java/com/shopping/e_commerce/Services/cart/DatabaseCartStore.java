@@ -0,0 +1,87 @@
+package com.shopping.e_commerce.Services.cart;
+
+import com.shopping.e_commerce.Entity.Cart;
+import com.shopping.e_commerce.Repository.CartRepository;
+import com.shopping.e_commerce.exceptions.ResourceNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.function.Consumer;
+
+/**
+ * CartStore writing every change straight to the database.
+ * Enabled with {@code carts.store.type=database}, e.g. when several application instances share the carts.
+ * Each change runs in its own transaction. When another request changed the cart concurrently (version
+ * conflict, or a duplicate item for the same product) the change is applied again on the latest cart,
+ * up to {@code carts.store.max-retries} times.
+ */
+@Component
+@ConditionalOnProperty(name = "carts.store.type", havingValue = "database")
+public class DatabaseCartStore implements CartStore {
+
+    private final CartRepository cartRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxRetries;
+
+    public DatabaseCartStore(CartRepository cartRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${carts.store.max-retries:3}") int maxRetries) {
+        this.cartRepository = cartRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // A retry needs a fresh transaction, the failed one can only roll back
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxRetries = maxRetries;
+    }
+
+    @Override
+    public Cart getCart(Long cartId) {
+        return cartRepository.findByIdWithItems(cartId).orElseThrow(() -> new ResourceNotFoundException("Cart not found"));
+    }
+
+    @Override
+    public BigDecimal getTotalAmount(Long cartId) {
+        return cartRepository.findTotalAmountById(cartId).orElseThrow(() -> new ResourceNotFoundException("Cart not found"));
+    }
+
+    @Override
+    public void update(Long cartId, Consumer<Cart> change) {
+        for(int attempt = 0; ; attempt++){
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    Cart cart = getCart(cartId);
+                    change.accept(cart);
+                    // Flush now so a conflict surfaces here rather than at commit
+                    cartRepository.saveAndFlush(cart);
+                });
+                return;
+            } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+                if(attempt >= maxRetries){
+                    throw e;
+                }
+                // Another request changed the cart first, merge by applying the change to its latest state
+            }
+        }
+    }
+
+    @Override
+    public void flush(Long cartId) {
+        // Every change is already in the database
+    }
+
+    @Override
+    public void flushAll() {
+        // Every change is already in the database
+    }
+
+    @Override
+    public void remove(Long cartId) {
+        // Nothing is held in memory
+    }
+}
@@ -1,6 +1,9 @@
 package com.shopping.e_commerce.Services.cart;
 
 import com.shopping.e_commerce.Entity.CartItem;
+import com.shopping.e_commerce.dto.CartDTO.CartItemOperation;
+
+import java.util.List;
 /**
  * Interface defining the operations for managing cart items in the e-commerce application.
  */
@@ -8,6 +11,7 @@ public interface ICartItemService {
     void addItemToCart(Long cartId, Long productId, int quantity);
     void deleteItemFromCart(Long cartId, Long itemId);
     void updateItemQuantity(Long cartId, Long productId, int quantity);
+    void applyItemOperations(Long cartId, List<CartItemOperation> operations);
 
     CartItem getCartItem(Long cartId, Long productId);
 }
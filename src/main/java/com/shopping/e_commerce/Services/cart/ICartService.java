@@ -2,6 +2,7 @@ package com.shopping.e_commerce.Services.cart;
 
 import com.shopping.e_commerce.Entity.Cart;
 import com.shopping.e_commerce.Entity.User;
+import com.shopping.e_commerce.dto.CartDTO.CartDto;
 
 import java.math.BigDecimal;
 
@@ -10,6 +11,7 @@ import java.math.BigDecimal;
  */
 public interface ICartService {
     Cart getCartById(Long id);
+    Cart getCartForCheckout(Long userId);
     void clearCart(Long id);
     BigDecimal getTotalPrice(Long id);
 
@@ -17,4 +19,6 @@ public interface ICartService {
     Cart initializeNewCart(User user);
 
     Cart getCartByUserId(Long userId);
+
+    CartDto convertToDto(Cart cart);
 }
@@ -0,0 +1,292 @@
+package com.shopping.e_commerce.Services.cart;
+
+import com.shopping.e_commerce.Entity.Cart;
+import com.shopping.e_commerce.Entity.CartItem;
+import com.shopping.e_commerce.Repository.CartRepository;
+import com.shopping.e_commerce.exceptions.ResourceNotFoundException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * CartStore keeping active carts in memory and writing them to the database behind the scenes.
+ * A cart is loaded once, changed in memory under its own lock, and flushed by a background task every
+ * {@code carts.store.flush-interval-ms}. Checkout flushes the cart synchronously, and a failure of that flush
+ * is thrown to the caller; all pending changes are flushed on shutdown. Carts that have been idle for {@code carts.store.idle-seconds} are dropped from memory.
+ * Items are addressed by their ID, so a change that adds an item flushes the cart before it returns; the new item has
+ * its ID right away, and a failure of that flush is thrown to the caller.
+ * The changes made since the last flush are kept with the cart. When the flush finds the stored cart changed
+ * by another writer (version conflict, or a duplicate item for the same product), the changes are applied again
+ * on the latest stored cart, up to {@code carts.store.max-retries} times.
+ * This is the default store; it assumes a single application instance owns the carts.
+ */
+@Component
+@ConditionalOnProperty(name = "carts.store.type", havingValue = "memory", matchIfMissing = true)
+public class InMemoryCartStore implements CartStore {
+
+    private final CartRepository cartRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxRetries;
+    private final int flushBatchSize;
+    private final long idleMillis;
+    private final Map<Long, HotCart> carts = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+
+    public InMemoryCartStore(CartRepository cartRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${carts.store.max-retries:3}") int maxRetries,
+                             @Value("${carts.store.flush-interval-ms:1000}") long flushIntervalMillis,
+                             @Value("${carts.store.flush-batch-size:100}") int flushBatchSize,
+                             @Value("${carts.store.idle-seconds:1800}") long idleSeconds) {
+        this.cartRepository = cartRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // A retry needs a fresh transaction, the failed one can only roll back
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxRetries = maxRetries;
+        this.flushBatchSize = flushBatchSize;
+        this.idleMillis = TimeUnit.SECONDS.toMillis(idleSeconds);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cart-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flusher.scheduleWithFixedDelay(this::flushDirtyCarts, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        flusher.shutdown();
+        flushAll();
+    }
+
+    /**
+     * Returns a snapshot of the cart and its items, so callers can read it while other requests keep changing the cart.
+     */
+    @Override
+    public Cart getCart(Long cartId) {
+        HotCart hot = hotCart(cartId);
+        synchronized (hot) {
+            return snapshot(hot.cart);
+        }
+    }
+
+    @Override
+    public BigDecimal getTotalAmount(Long cartId) {
+        HotCart hot = carts.get(cartId);
+        if(hot == null){
+            // Not being shopped with, the stored total is current
+            return cartRepository.findTotalAmountById(cartId).orElseThrow(() -> new ResourceNotFoundException("Cart not found"));
+        }
+        synchronized (hot) {
+            return hot.cart.getTotalAmount();
+        }
+    }
+
+    @Override
+    public void update(Long cartId, Consumer<Cart> change) {
+        while(true){
+            HotCart hot = hotCart(cartId);
+            synchronized (hot) {
+                if(hot.removed){
+                    // Removed or flushed unsuccessfully while we waited, start again from the database
+                    continue;
+                }
+                change.accept(hot.cart);
+                hot.pending.add(change);
+                hot.dirty = true;
+                hot.lastAccess = System.currentTimeMillis();
+                if(hot.cart.getItems().stream().anyMatch(item -> item.getId() == null)){
+                    flush(cartId, hot);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes the pending changes of the cart now.
+     *
+     * @throws RuntimeException if the cart could not be written; it is dropped from memory and reloaded on next use
+     */
+    @Override
+    public void flush(Long cartId) {
+        HotCart hot = carts.get(cartId);
+        if(hot != null){
+            flush(cartId, hot);
+        }
+    }
+
+    @Override
+    public void flushAll() {
+        carts.forEach(this::flushInBackground);
+    }
+
+    @Override
+    public void remove(Long cartId) {
+        HotCart hot = carts.remove(cartId);
+        if(hot != null){
+            synchronized (hot) {
+                hot.removed = true;
+            }
+        }
+    }
+
+    /**
+     * Background task: writes up to {@code flushBatchSize} changed carts and drops idle ones from memory.
+     */
+    private void flushDirtyCarts(){
+        int flushed = 0;
+        long idleSince = System.currentTimeMillis() - idleMillis;
+        for(Map.Entry<Long, HotCart> entry : carts.entrySet()){
+            HotCart hot = entry.getValue();
+            if(flushed < flushBatchSize && flushInBackground(entry.getKey(), hot)){
+                flushed++;
+            }
+            synchronized (hot) {
+                if(!hot.dirty && hot.lastAccess < idleSince){
+                    hot.removed = true;
+                    carts.remove(entry.getKey(), hot);
+                }
+            }
+        }
+    }
+
+    /**
+     * Flushes the cart without a caller to report a failure to, so the failure is only logged.
+     *
+     * @return true if the cart had changes to write
+     */
+    private boolean flushInBackground(Long cartId, HotCart hot){
+        try {
+            return flush(cartId, hot);
+        } catch (RuntimeException e) {
+            System.out.println("Failed to flush cart " + cartId + ": " + e.getMessage());
+            return true;
+        }
+    }
+
+    private boolean flush(Long cartId, HotCart hot){
+        synchronized (hot) {
+            if(hot.removed || !hot.dirty){
+                return false;
+            }
+            try {
+                // Saving returns the merged copy, which carries the IDs of newly inserted items
+                hot.cart = save(cartId, hot);
+                hot.pending.clear();
+                hot.dirty = false;
+                return true;
+            } catch (RuntimeException e) {
+                // Still conflicting after the retries, or the cart is gone. Drop the cart from memory
+                // so it cannot block the flusher, it is reloaded on next use
+                hot.removed = true;
+                carts.remove(cartId, hot);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Writes the cart in its own transaction. On a conflict with another writer the pending changes are
+     * applied to the latest stored cart, which is written instead; a change that no longer applies is dropped.
+     */
+    private Cart save(Long cartId, HotCart hot){
+        for(int attempt = 0; ; attempt++){
+            boolean merge = attempt > 0;
+            try {
+                return transactionTemplate.execute(status -> {
+                    if(!merge){
+                        // Flush now so a conflict surfaces here rather than at commit
+                        Cart saved = cartRepository.saveAndFlush(hot.cart);
+                        if(!cartId.equals(saved.getId())){
+                            // The cart was deleted meanwhile and merging inserted a new one, roll that back
+                            throw new ResourceNotFoundException("Cart not found");
+                        }
+                        return saved;
+                    }
+                    Cart latest = cartRepository.findByIdWithItems(cartId).orElseThrow(() -> new ResourceNotFoundException("Cart not found"));
+                    for(Consumer<Cart> change : hot.pending){
+                        try {
+                            change.accept(latest);
+                        } catch (RuntimeException e) {
+                            System.out.println("Dropped a change to cart " + cartId + " that no longer applies: " + e.getMessage());
+                        }
+                    }
+                    return cartRepository.saveAndFlush(latest);
+                });
+            } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+                if(attempt >= maxRetries){
+                    throw e;
+                }
+                // Another writer changed the cart first, merge by applying the pending changes to its latest state
+            }
+        }
+    }
+
+    private HotCart hotCart(Long cartId){
+        HotCart hot = carts.get(cartId);
+        if(hot == null){
+            // Loaded outside the map so the database read does not block other carts
+            Cart cart = cartRepository.findByIdWithItems(cartId).orElseThrow(() -> new ResourceNotFoundException("Cart not found"));
+            hot = carts.computeIfAbsent(cartId, id -> new HotCart(cart));
+        }
+        hot.lastAccess = System.currentTimeMillis();
+        return hot;
+    }
+
+    private static Cart snapshot(Cart cart){
+        Cart copy = new Cart();
+        copy.setId(cart.getId());
+        copy.setTotalAmount(cart.getTotalAmount());
+        copy.setVersion(cart.getVersion());
+        copy.setUser(cart.getUser());
+        Set<CartItem> items = new HashSet<>();
+        for(CartItem item : cart.getItems()){
+            // Items are changed in place by later updates, so they are copied too
+            CartItem itemCopy = new CartItem();
+            itemCopy.setId(item.getId());
+            itemCopy.setQuantity(item.getQuantity());
+            itemCopy.setUnitPrice(item.getUnitPrice());
+            itemCopy.setTotalPrice(item.getTotalPrice());
+            itemCopy.setVersion(item.getVersion());
+            itemCopy.setProduct(item.getProduct());
+            itemCopy.setCart(copy);
+            items.add(itemCopy);
+        }
+        copy.setItems(items);
+        return copy;
+    }
+
+    /**
+     * A cart held in memory. All fields are guarded by the HotCart's monitor.
+     */
+    private static class HotCart {
+        private Cart cart;
+        private final List<Consumer<Cart>> pending = new ArrayList<>();
+        private boolean dirty;
+        private boolean removed;
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        private HotCart(Cart cart) {
+            this.cart = cart;
+        }
+    }
+}
@@ -1,17 +1,25 @@
 package com.shopping.e_commerce.Services.image;
 
 import com.shopping.e_commerce.Entity.Image;
-import com.shopping.e_commerce.dto.ImageDTO.ImageDto;
+import com.shopping.e_commerce.Repository.ImageRepository;
+import com.shopping.e_commerce.dto.ImageDTO.ImageUploadResultDto;
+import org.springframework.core.io.Resource;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.sql.SQLException;
 import java.util.List;
+import java.util.Optional;
 /**
  * Interface defining the operations for managing images in the e-commerce application.
  */
 public interface IImageService {
     Image getImageById(Long id);
     void deleteImageById(Long id);
-    List<ImageDto> saveImages(List<MultipartFile> files, Long productId);
+    List<ImageUploadResultDto> saveImages(List<MultipartFile> files, Long productId);
     void updateImage(MultipartFile file, Long imageId);
+    ImageRepository.ImageMetadata getImageMetadata(Long id);
+    Resource getImageContent(ImageRepository.ImageMetadata image) throws SQLException;
+    Optional<ImageVariant> getImageVariant(ImageRepository.ImageMetadata image, int width);
+    boolean isImageVariantPending(ImageRepository.ImageMetadata image, int width);
 
 }
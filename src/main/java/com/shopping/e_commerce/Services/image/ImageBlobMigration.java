@@ -0,0 +1,77 @@
+package com.shopping.e_commerce.Services.image;
+
+import com.shopping.e_commerce.Entity.Image;
+import com.shopping.e_commerce.Repository.ImageRepository;
+import com.shopping.e_commerce.Services.image.storage.ImageStorage;
+import com.shopping.e_commerce.Services.image.storage.StoredImage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Job moving image bytes out of the legacy Blob column into the image storage.
+ * Runs on startup when {@code images.storage.migrate-blobs=true}. Images are migrated in batches,
+ * each in its own transaction, so an interrupted run simply continues where it stopped.
+ */
+@Component
+@RequiredArgsConstructor
+public class ImageBlobMigration implements CommandLineRunner {
+
+    private static final int BATCH_SIZE = 50;
+
+    private final ImageRepository imageRepository;
+    private final ImageStorage imageStorage;
+    private final TransactionTemplate transactionTemplate;
+    private final ImageVariantService imageVariantService;
+
+    @Value("${images.storage.migrate-blobs:false}")
+    private boolean migrateOnStartup;
+
+    @Override
+    public void run(String... args) {
+        if(migrateOnStartup){
+            int migrated = migrate();
+            System.out.println("Migrated " + migrated + " images to the image storage");
+        }
+    }
+
+    /**
+     * Migrates every image that still keeps its bytes in the database.
+     *
+     * @return the number of migrated images
+     */
+    public int migrate(){
+        int migrated = 0;
+        int batch;
+        do {
+            batch = transactionTemplate.execute(status -> migrateBatch());
+            migrated += batch;
+        } while (batch == BATCH_SIZE);
+        return migrated;
+    }
+
+    private int migrateBatch(){
+        List<Image> images = imageRepository.findByContentHashIsNullAndImageIsNotNull(PageRequest.of(0, BATCH_SIZE));
+        for(Image image : images){
+            try(InputStream content = image.getImage().getBinaryStream()){
+                StoredImage storedImage = imageStorage.store(content);
+                image.setContentHash(storedImage.getContentHash());
+                image.setFileSize(storedImage.getSize());
+                image.setImage(null);
+                imageVariantService.generateVariantsAsync(storedImage.getContentHash(), image.getFileType());
+            }catch(IOException | SQLException e){
+                throw new IllegalStateException("Failed to migrate image with id: " + image.getId(), e);
+            }
+        }
+        imageRepository.saveAll(images);
+        return images.size();
+    }
+}
@@ -4,19 +4,32 @@ import com.shopping.e_commerce.Entity.Image;
 import com.shopping.e_commerce.Entity.Product;
 import com.shopping.e_commerce.Repository.ImageRepository;
 import com.shopping.e_commerce.Repository.ProductRepository;
+import com.shopping.e_commerce.Services.product.ProductCache;
+import com.shopping.e_commerce.Services.image.storage.ImageStorage;
+import com.shopping.e_commerce.Services.image.storage.StoredImage;
 import com.shopping.e_commerce.Services.product.ProductService;
-import com.shopping.e_commerce.dto.ImageDTO.ImageDto;
+import com.shopping.e_commerce.dto.ImageDTO.ImageUploadResultDto;
 import com.shopping.e_commerce.exceptions.ResourceNotFoundException;
+import com.shopping.e_commerce.mapper.ImageMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.sql.rowset.serial.SerialBlob;
 import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Blob;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 /**
  * Service class for managing images associated with products.
@@ -26,12 +39,36 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ImageService implements IImageService{
 
+    private static final int CONTENT_LOCK_STRIPES = 64;
+
     @Autowired
     private final ImageRepository imageRepository;
 
     @Autowired
     private final ProductService productService;
 
+    @Autowired
+    private final ProductCache productCache;
+
+    @Autowired
+    private final ImageStorage imageStorage;
+
+    @Autowired
+    private final ImageVariantService imageVariantService;
+
+    @Autowired
+    private final ImageUploadExecutor imageUploadExecutor;
+
+    @Autowired
+    private final ImageMapper imageMapper;
+
+    /**
+     * Locks striped by content hash. Releasing content and saving an image that refers to the same content
+     * take the same lock, so bytes cannot be deleted between being stored and being referred to.
+     */
+    private final ReentrantLock[] contentLocks = IntStream.range(0, CONTENT_LOCK_STRIPES)
+            .mapToObj(i -> new ReentrantLock()).toArray(ReentrantLock[]::new);
+
     /**
      * Retrieves an image by its ID.
      *
@@ -53,51 +90,82 @@ public class ImageService implements IImageService{
      */
     @Override
     public void deleteImageById(Long id) {
-        imageRepository.findById(id).ifPresentOrElse(imageRepository :: delete, () ->{
+        imageRepository.findById(id).ifPresentOrElse(image -> {
+            imageRepository.delete(image);
+            releaseContent(image.getContentHash());
+            productCache.evictDto(image.getProduct().getId());
+        }, () ->{
             throw  new ResourceNotFoundException("Error deleting an image with id:" + id);
         });
     }
 
     /**
      * Saves multiple images associated with a product.
+     * The files are streamed to the image storage in parallel on the upload worker pool, which hashes and
+     * measures them on the fly, and the rows of all stored files are then inserted in a single transaction.
+     * A file that cannot be stored is reported as failed without affecting the others.
+     * Resized variants are generated in the background afterwards.
      *
      * @param files the list of MultipartFile images to save
      * @param productId the ID of the product associated with the images
-     * @return a list of ImageDto objects representing the saved images
+     * @return the outcome of every file, in the order the files were given
      */
     @Override
-    public List<ImageDto> saveImages(List<MultipartFile> files, Long productId) {
+    public List<ImageUploadResultDto> saveImages(List<MultipartFile> files, Long productId) {
      Product product = productService.getProductById(productId);
 
-     List<ImageDto> savedImageDto = new ArrayList<>();
-     for(MultipartFile file: files){
+     List<StoredUpload> uploads = imageUploadExecutor.mapAll(files, file -> {
          try{
              Image image = new Image();
              image.setFileName(file.getOriginalFilename());
              image.setFileType(file.getContentType());
-             image.setImage(new SerialBlob(file.getBytes()));
+             storeContent(image, file);
              image.setProduct(product);
+             return new StoredUpload(file, image, null);
+         }catch(IOException | RuntimeException e){
+             return new StoredUpload(file, null, e.getMessage());
+         }
+     });
 
-             String buildDownloadUrl = "/api/v1/images/image/download/";
-
-             String downloadUrl = buildDownloadUrl + image.getId();
-             image.setDownloadUrl(downloadUrl);
-             Image savedImage = imageRepository.save(image);
-             savedImage.setDownloadUrl(buildDownloadUrl + savedImage.getId() );
-             imageRepository.save(savedImage);
-
-             ImageDto imageDto = new ImageDto();
-             imageDto.setId(savedImage.getId());
-             imageDto.setFileName(savedImage.getFileName());
-             imageDto.setDownloadUrl(savedImage.getDownloadUrl());
-             savedImageDto.add(imageDto);
+     List<String> contentHashes = uploads.stream().map(StoredUpload::image).filter(Objects::nonNull).map(Image::getContentHash).toList();
+     List<StoredUpload> savedUploads = withContentLocked(contentHashes, () -> {
+         // A file whose bytes cannot be stored again is reported as failed, the others are still saved
+         List<StoredUpload> restored = uploads.stream().map(upload -> {
+             if(upload.image() == null){
+                 return upload;
+             }
+             try{
+                 restoreContent(upload.image(), upload.file());
+                 return upload;
+             }catch(RuntimeException e){
+                 return new StoredUpload(upload.file(), null, e.getMessage());
+             }
+         }).toList();
+         // Saving new entities assigns the generated IDs to the same instances
+         imageRepository.saveAll(restored.stream().map(StoredUpload::image).filter(Objects::nonNull).toList());
+         return restored;
+     });
 
-         }catch(IOException  | SQLException e){
-                throw  new RuntimeException(e.getMessage());
+     List<ImageUploadResultDto> results = new ArrayList<>();
+     for(StoredUpload upload : savedUploads){
+         Image savedImage = upload.image();
+         if(savedImage == null){
+             results.add(new ImageUploadResultDto(upload.file().getOriginalFilename(), false, null, upload.error()));
+             continue;
          }
+         results.add(new ImageUploadResultDto(upload.file().getOriginalFilename(), true, imageMapper.toDto(savedImage), null));
+         imageVariantService.generateVariantsAsync(savedImage.getContentHash(), savedImage.getFileType());
      }
-        return savedImageDto;
+        productCache.evictDto(productId);
+        return results;
     }
+
+    /**
+     * A file written to the image storage with its unsaved Image, or the reason it could not be stored.
+     */
+    private record StoredUpload(MultipartFile file, Image image, String error) {
+    }
+
     /**
      * Updates an existing image.
      *
@@ -108,13 +176,146 @@ public class ImageService implements IImageService{
     @Override
     public void updateImage(MultipartFile file, Long imageId) {
         Image image = getImageById(imageId);
+        String previousHash = image.getContentHash();
 
         try{
             image.setFileName(file.getOriginalFilename());
-            image.setImage(new SerialBlob(file.getBytes()));
-            imageRepository.save(image);
-        }catch(IOException | SQLException e){
+            // Variants and the Content-Type of the served image follow the type of the new file
+            image.setFileType(file.getContentType());
+            storeContent(image, file);
+            withContentLocked(List.of(image.getContentHash()), () -> {
+                restoreContent(image, file);
+                return imageRepository.save(image);
+            });
+            releaseContent(previousHash);
+            imageVariantService.generateVariantsAsync(image.getContentHash(), image.getFileType());
+            productCache.evictDto(image.getProduct().getId());
+        }catch(IOException e){
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves the metadata of an image without reading its bytes.
+     *
+     * @param id the ID of the image
+     * @return the image metadata
+     * @throws ResourceNotFoundException if the image does not exist
+     */
+    @Override
+    public ImageRepository.ImageMetadata getImageMetadata(Long id) {
+        return imageRepository.findMetadataById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Image not found with id: " + id));
+    }
+
+    /**
+     * Returns the bytes of an image. Images kept in the image storage are streamed from there,
+     * images that have not been migrated yet are read from their legacy Blob column.
+     *
+     * @param image the metadata of the image whose bytes to return
+     * @return the image bytes as a Resource
+     * @throws SQLException if the legacy Blob cannot be read
+     */
+    @Override
+    public Resource getImageContent(ImageRepository.ImageMetadata image) throws SQLException {
+        if(image.getContentHash() != null){
+            return imageStorage.load(image.getContentHash());
+        }
+        Blob blob = getImageById(image.getId()).getImage();
+        if(blob == null){
+            throw new ResourceNotFoundException("Image content not found with id: " + image.getId());
+        }
+        return new ByteArrayResource(blob.getBytes(1, (int) blob.length()));
+    }
+
+    /**
+     * Finds a resized variant of an image for the requested width.
+     *
+     * @param image the metadata of the image
+     * @param width the width the client asked for
+     * @return the variant, or empty if the original should be served
+     */
+    @Override
+    public Optional<ImageVariant> getImageVariant(ImageRepository.ImageMetadata image, int width) {
+        return imageVariantService.findVariant(image.getContentHash(), image.getFileType(), width);
+    }
+
+    /**
+     * Tells whether a variant that was not found is still being generated, scheduling it again if its job was lost.
+     *
+     * @param image the metadata of the image
+     * @param width the width the client asked for
+     * @return true if the variant is still to come, false if the original is served for this width for good
+     */
+    @Override
+    public boolean isImageVariantPending(ImageRepository.ImageMetadata image, int width) {
+        return imageVariantService.isVariantPending(image.getContentHash(), image.getFileType(), width);
+    }
+
+    /**
+     * Writes the bytes of an uploaded file to the image storage and points the image at them.
+     */
+    private void storeContent(Image image, MultipartFile file) throws IOException {
+        try(InputStream content = file.getInputStream()){
+            StoredImage storedImage = imageStorage.store(content);
+            image.setContentHash(storedImage.getContentHash());
+            image.setFileSize(storedImage.getSize());
+            image.setImage(null);
+        }
+    }
+
+    /**
+     * Stores the bytes of the file again if they were released after they were first stored.
+     * Called holding the content lock, right before the image referring to them is saved.
+     */
+    private void restoreContent(Image image, MultipartFile file){
+        if(imageStorage.exists(image.getContentHash())){
+            return;
+        }
+        try {
+            storeContent(image, file);
+        } catch (IOException e) {
             throw new RuntimeException(e.getMessage());
         }
     }
+
+    /**
+     * Deletes stored bytes once no image refers to them anymore.
+     * Content is shared between images with identical bytes, so it can only go with its last reference.
+     * The references are checked under the content lock, so an image being saved with the same bytes keeps them.
+     */
+    private void releaseContent(String contentHash){
+        if(contentHash == null){
+            return;
+        }
+        withContentLocked(List.of(contentHash), () -> {
+            if(!imageRepository.existsByContentHash(contentHash)){
+                try {
+                    imageStorage.delete(contentHash);
+                } catch (IOException e) {
+                    throw new RuntimeException(e.getMessage());
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Runs the action holding the locks of the content hashes. The stripes are locked in ascending order,
+     * so two callers locking several hashes cannot deadlock.
+     */
+    private <T> T withContentLocked(Collection<String> contentHashes, Supplier<T> action){
+        int[] stripes = contentHashes.stream().mapToInt(hash -> Math.floorMod(hash.hashCode(), CONTENT_LOCK_STRIPES))
+                .distinct().sorted().toArray();
+        for(int stripe : stripes){
+            contentLocks[stripe].lock();
+        }
+        try {
+            return action.get();
+        } finally {
+            for(int i = stripes.length - 1; i >= 0; i--){
+                contentLocks[stripes[i]].unlock();
+            }
+        }
+    }
 }
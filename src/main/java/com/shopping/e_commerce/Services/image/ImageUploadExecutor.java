@@ -0,0 +1,86 @@
+package com.shopping.e_commerce.Services.image;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Bounded worker pool processing the files of multi-file uploads in parallel.
+ * The pool size limits the total number of files processed at once, and each call is additionally
+ * limited to a fixed number of workers so one large upload cannot occupy the whole pool.
+ * When the pool is saturated the request thread processes the files itself.
+ */
+@Component
+public class ImageUploadExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final int maxConcurrencyPerRequest;
+
+    public ImageUploadExecutor(@Value("${images.upload.threads:8}") int threads,
+                               @Value("${images.upload.max-concurrency-per-request:4}") int maxConcurrencyPerRequest) {
+        this.maxConcurrencyPerRequest = maxConcurrencyPerRequest;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads * 4),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-upload-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        executor.shutdownNow();
+    }
+
+    /**
+     * Applies the task to every item in parallel and waits for all of them.
+     * The task should report failures in its result rather than throw, so one bad item does not hide the others.
+     *
+     * @param items the items to process
+     * @param task the processing applied to each item
+     * @return the results in the order of the items
+     */
+    @SuppressWarnings("unchecked")
+    public <T, R> List<R> mapAll(List<T> items, Function<T, R> task){
+        Object[] results = new Object[items.size()];
+        AtomicInteger next = new AtomicInteger();
+        int workers = Math.min(items.size(), maxConcurrencyPerRequest);
+
+        List<Future<?>> futures = new ArrayList<>();
+        for(int i = 0; i < workers; i++){
+            // Each worker keeps taking the next unprocessed item until none are left
+            futures.add(executor.submit(() -> {
+                int index;
+                while((index = next.getAndIncrement()) < items.size()){
+                    results[index] = task.apply(items.get(index));
+                }
+            }));
+        }
+        for(Future<?> future : futures){
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while processing upload", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause().getMessage(), e.getCause());
+            }
+        }
+        return (List<R>) Arrays.asList(results);
+    }
+}
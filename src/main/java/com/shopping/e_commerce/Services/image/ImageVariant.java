@@ -0,0 +1,16 @@
+package com.shopping.e_commerce.Services.image;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.core.io.Resource;
+
+/**
+ * A resized variant of an image, served in place of the original when a width is requested.
+ */
+@Getter
+@AllArgsConstructor
+public class ImageVariant {
+    private final int width;
+    private final String fileType;
+    private final Resource content;
+}
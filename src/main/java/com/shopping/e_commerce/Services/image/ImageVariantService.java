@@ -0,0 +1,218 @@
+package com.shopping.e_commerce.Services.image;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.shopping.e_commerce.Services.image.storage.ImageStorage;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service generating fixed-width variants of product images in the background.
+ * Variants are produced on a bounded worker pool after an image is saved or updated, so uploads never
+ * wait for resizing. When the queue is full new work is dropped and the original keeps being served;
+ * a later request for a variant that is still missing schedules it again.
+ * Variants are never wider than the original, so for wider requests the original is the final answer.
+ */
+@Service
+public class ImageVariantService {
+
+    private final ImageStorage imageStorage;
+    private final int[] widths;
+    private final ThreadPoolExecutor executor;
+    /**
+     * Width of the original image by content hash, 0 if no variants can be made from it. Content never changes.
+     */
+    private final Cache<String, Integer> originalWidths = Caffeine.newBuilder().maximumSize(10_000).build();
+    /**
+     * Content hashes whose variants are queued or being generated, so repeated requests queue them once.
+     */
+    private final Set<String> scheduled = ConcurrentHashMap.newKeySet();
+
+    public ImageVariantService(ImageStorage imageStorage,
+                               @Value("${images.variants.widths:128,320,800}") int[] widths,
+                               @Value("${images.variants.threads:2}") int threads,
+                               @Value("${images.variants.queue-capacity:100}") int queueCapacity) {
+        this.imageStorage = imageStorage;
+        this.widths = Arrays.stream(widths).sorted().toArray();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-variants-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queues the generation of all configured variants of an image.
+     *
+     * @param contentHash the hash of the original image bytes
+     * @param fileType the content type of the original image
+     */
+    public void generateVariantsAsync(String contentHash, String fileType){
+        if(contentHash == null || !scheduled.add(contentHash)){
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generateVariants(contentHash, fileType);
+                } catch (Exception e) {
+                    // Do not schedule it again on every request, the original is served for every width
+                    originalWidths.put(contentHash, 0);
+                    System.out.println("Failed to generate variants of image " + contentHash + ": " + e.getMessage());
+                } finally {
+                    scheduled.remove(contentHash);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Queue full or shutting down, the variants are scheduled again when they are requested
+            scheduled.remove(contentHash);
+        }
+    }
+
+    /**
+     * Finds the variant best suited for the requested width: the smallest one at least that wide,
+     * or the largest one if the request is wider than every variant.
+     *
+     * @param contentHash the hash of the original image bytes
+     * @param fileType the content type of the original image
+     * @param requestedWidth the width the client asked for
+     * @return the variant, or empty if it has not been generated (yet) and the original should be served
+     */
+    public Optional<ImageVariant> findVariant(String contentHash, String fileType, int requestedWidth){
+        if(contentHash == null || widths.length == 0){
+            return Optional.empty();
+        }
+        int width = variantWidth(requestedWidth);
+        String variantType = "png".equals(formatOf(fileType)) ? "image/png" : "image/jpeg";
+        return imageStorage.loadVariant(contentHash, width)
+                .map(resource -> new ImageVariant(width, variantType, resource));
+    }
+
+    /**
+     * Tells whether a variant for the requested width, found missing by {@link #findVariant}, is still to come.
+     * None comes if the original is not wider than the variant or cannot be resized; the original is then the
+     * final answer for that width. A variant that should exist, e.g. because its job was dropped from a full
+     * queue, is scheduled again.
+     *
+     * @param contentHash the hash of the original image bytes
+     * @param fileType the content type of the original image
+     * @param requestedWidth the width the client asked for
+     * @return true if the original only stands in until the variant is generated
+     */
+    public boolean isVariantPending(String contentHash, String fileType, int requestedWidth){
+        if(contentHash == null || widths.length == 0){
+            return false;
+        }
+        Integer originalWidth = originalWidths.get(contentHash, this::readOriginalWidth);
+        // Variants are only generated for widths below the original's
+        if(originalWidth != null && originalWidth <= variantWidth(requestedWidth)){
+            return false;
+        }
+        generateVariantsAsync(contentHash, fileType);
+        return true;
+    }
+
+    private int variantWidth(int requestedWidth){
+        return Arrays.stream(widths).filter(w -> w >= requestedWidth).findFirst().orElse(widths[widths.length - 1]);
+    }
+
+    /**
+     * Reads the width of the original from its header without decoding it.
+     *
+     * @return the width, 0 if ImageIO cannot read the format, or null (not cached) if the content could not be read
+     */
+    private Integer readOriginalWidth(String contentHash){
+        try(ImageInputStream input = ImageIO.createImageInputStream(imageStorage.load(contentHash).getInputStream())){
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if(readers == null || !readers.hasNext()){
+                return 0;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                return reader.getWidth(0);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            System.out.println("Failed to read the width of image " + contentHash + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void generateVariants(String contentHash, String fileType) throws IOException {
+        BufferedImage original;
+        try(InputStream content = imageStorage.load(contentHash).getInputStream()){
+            original = ImageIO.read(content);
+        }
+        if(original == null){
+            // Not a format ImageIO can decode, the original is served for every width
+            originalWidths.put(contentHash, 0);
+            return;
+        }
+        originalWidths.put(contentHash, original.getWidth());
+        String format = formatOf(fileType);
+        for(int width : widths){
+            // Never upscale: narrower originals are served as they are
+            if(width >= original.getWidth() || imageStorage.loadVariant(contentHash, width).isPresent()){
+                continue;
+            }
+            byte[] encoded = resize(original, width, format);
+            imageStorage.storeVariant(contentHash, width, new ByteArrayInputStream(encoded));
+        }
+    }
+
+    private byte[] resize(BufferedImage original, int width, String format) throws IOException {
+        int height = Math.max(1, Math.round((float) original.getHeight() * width / original.getWidth()));
+        int type = "png".equals(format) ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage scaled = new BufferedImage(width, height, type);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(original, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(scaled, format, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Variants keep transparency for PNG and GIF originals and are re-encoded as JPEG otherwise.
+     */
+    private static String formatOf(String fileType){
+        return "image/png".equals(fileType) || "image/gif".equals(fileType) ? "png" : "jpg";
+    }
+}
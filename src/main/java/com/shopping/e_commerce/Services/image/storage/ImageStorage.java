@@ -0,0 +1,22 @@
+package com.shopping.e_commerce.Services.image.storage;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+/**
+ * Storage backend for image bytes. Content is addressed by its SHA-256 hash,
+ * so identical uploads are stored once and a stored object never changes.
+ * Resized variants are kept next to the content they were derived from and are deleted with it.
+ */
+public interface ImageStorage {
+    StoredImage store(InputStream content) throws IOException;
+    Resource load(String contentHash);
+    boolean exists(String contentHash);
+    void delete(String contentHash) throws IOException;
+
+    void storeVariant(String contentHash, int width, InputStream content) throws IOException;
+    Optional<Resource> loadVariant(String contentHash, int width);
+}
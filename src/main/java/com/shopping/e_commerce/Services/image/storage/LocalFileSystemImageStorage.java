@@ -0,0 +1,161 @@
+package com.shopping.e_commerce.Services.image.storage;
+
+import com.shopping.e_commerce.exceptions.ResourceNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * ImageStorage keeping image bytes on the local file system under their SHA-256 hash.
+ * Files are laid out as {@code <root>/<first two hash characters>/<hash>} to keep directories small,
+ * and variants of a file as {@code <hash>.w<width>} in the same directory.
+ */
+@Component
+public class LocalFileSystemImageStorage implements ImageStorage {
+
+    private static final Pattern CONTENT_HASH = Pattern.compile("[0-9a-f]{64}");
+    private static final String VARIANT_SUFFIX = ".w";
+
+    private final Path root;
+
+    public LocalFileSystemImageStorage(@Value("${images.storage.location:image-store}") String location) {
+        this.root = Paths.get(location).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Streams the content to a temporary file while hashing it, then moves the file to its content address.
+     *
+     * @param content the image bytes, read once and not closed
+     * @return the content hash and size of the stored bytes
+     * @throws IOException if the content cannot be read or written
+     */
+    @Override
+    public StoredImage store(InputStream content) throws IOException {
+        Files.createDirectories(root);
+        Path temp = Files.createTempFile(root, "upload-", ".tmp");
+        try {
+            MessageDigest digest = newDigest();
+            long size = Files.copy(new DigestInputStream(content, digest), temp, StandardCopyOption.REPLACE_EXISTING);
+            String contentHash = HexFormat.of().formatHex(digest.digest());
+
+            Path target = pathOf(contentHash);
+            Files.createDirectories(target.getParent());
+            // Identical bytes may already be stored, replacing them with the same content is harmless
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return new StoredImage(contentHash, size);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Returns the stored file as a FileSystemResource, which is streamed to the response without
+     * loading the whole file into memory.
+     *
+     * @param contentHash the hash of the content
+     * @return the stored content
+     * @throws ResourceNotFoundException if no content is stored under the hash
+     */
+    @Override
+    public Resource load(String contentHash) {
+        Path path = pathOf(contentHash);
+        if(!Files.isRegularFile(path)){
+            throw new ResourceNotFoundException("Image content not found: " + contentHash);
+        }
+        return new FileSystemResource(path);
+    }
+
+    /**
+     * Tells whether content is stored under the hash.
+     *
+     * @param contentHash the hash of the content
+     * @return true if the content is stored
+     */
+    @Override
+    public boolean exists(String contentHash) {
+        return Files.isRegularFile(pathOf(contentHash));
+    }
+
+    /**
+     * Deletes the content and all variants derived from it.
+     *
+     * @param contentHash the hash of the content
+     * @throws IOException if a file cannot be deleted
+     */
+    @Override
+    public void delete(String contentHash) throws IOException {
+        Path path = pathOf(contentHash);
+        Files.deleteIfExists(path);
+        if(Files.isDirectory(path.getParent())){
+            try(DirectoryStream<Path> variants = Files.newDirectoryStream(path.getParent(), contentHash + VARIANT_SUFFIX + "*")){
+                for(Path variant : variants){
+                    Files.deleteIfExists(variant);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stores a resized variant of the content next to it, written to a temporary file first
+     * so a half-written variant is never served.
+     *
+     * @param contentHash the hash of the content the variant was derived from
+     * @param width the width of the variant in pixels
+     * @param content the encoded variant, read once and not closed
+     * @throws IOException if the variant cannot be written
+     */
+    @Override
+    public void storeVariant(String contentHash, int width, InputStream content) throws IOException {
+        Path target = variantPathOf(contentHash, width);
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), "variant-", ".tmp");
+        try {
+            Files.copy(content, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public Optional<Resource> loadVariant(String contentHash, int width) {
+        Path path = variantPathOf(contentHash, width);
+        return Files.isRegularFile(path) ? Optional.of(new FileSystemResource(path)) : Optional.empty();
+    }
+
+    private Path variantPathOf(String contentHash, int width){
+        Path path = pathOf(contentHash);
+        return path.resolveSibling(contentHash + VARIANT_SUFFIX + width);
+    }
+
+    private Path pathOf(String contentHash){
+        // Only well-formed hashes are accepted so a path can never escape the storage root
+        if(contentHash == null || !CONTENT_HASH.matcher(contentHash).matches()){
+            throw new IllegalArgumentException("Invalid content hash: " + contentHash);
+        }
+        return root.resolve(contentHash.substring(0, 2)).resolve(contentHash);
+    }
+
+    private static MessageDigest newDigest(){
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
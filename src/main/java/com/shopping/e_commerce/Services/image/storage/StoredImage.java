@@ -0,0 +1,14 @@
+package com.shopping.e_commerce.Services.image.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Result of storing image bytes: the SHA-256 hash the bytes are addressed by and their size.
+ */
+@Getter
+@AllArgsConstructor
+public class StoredImage {
+    private final String contentHash;
+    private final long size;
+}
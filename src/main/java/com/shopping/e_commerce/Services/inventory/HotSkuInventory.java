@@ -0,0 +1,269 @@
+package com.shopping.e_commerce.Services.inventory;
+
+import com.shopping.e_commerce.Repository.ProductRepository;
+import com.shopping.e_commerce.Services.product.ProductCache;
+import com.shopping.e_commerce.exceptions.ResourceNotFoundException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * In-memory inventory of flash-sale products ("hot SKUs"), so checkouts of the same product do not
+ * queue on its database row. Opt-in per product with {@code inventory.hot-skus}.
+ * On first use the stock of a hot product is loaded and spread over {@code inventory.hot-sku.stripes}
+ * counters; a reservation takes its quantity from the counters with compare-and-set, starting at a
+ * random one. The quantities sold are written back to the product by a background task every
+ * {@code inventory.hot-sku.reconcile-interval-ms}, all products in one transaction, and on shutdown.
+ * Like the in-memory cart store, this assumes a single application instance sells the hot products.
+ */
+@Component
+public class HotSkuInventory {
+
+    // Counters are spaced one cache line apart so that threads on different stripes do not contend
+    private static final int PADDING = 8;
+
+    private final ProductRepository productRepository;
+    private final ProductCache productCache;
+    private final TransactionTemplate transactionTemplate;
+    private final Set<Long> hotProductIds;
+    private final int stripes;
+    private final Map<Long, HotSku> skus = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService reconciler;
+    /**
+     * Held while sold quantities are written back, and while an edit reads and writes a hot product's inventory.
+     */
+    private final Object writeBackLock = new Object();
+
+    public HotSkuInventory(ProductRepository productRepository,
+                           ProductCache productCache,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${inventory.hot-skus:}") Set<Long> hotProductIds,
+                           @Value("${inventory.hot-sku.stripes:16}") int stripes,
+                           @Value("${inventory.hot-sku.reconcile-interval-ms:1000}") long reconcileIntervalMillis) {
+        this.productRepository = productRepository;
+        this.productCache = productCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.hotProductIds = Set.copyOf(hotProductIds);
+        this.stripes = stripes;
+        this.reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inventory-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.reconciler.scheduleWithFixedDelay(this::reconcile, reconcileIntervalMillis, reconcileIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        reconciler.shutdown();
+        reconcile();
+    }
+
+    /**
+     * Tells whether the inventory of the product is kept in memory.
+     *
+     * @param productId the ID of the product
+     * @return true if the product is configured as a hot SKU
+     */
+    public boolean isHot(Long productId){
+        return hotProductIds.contains(productId);
+    }
+
+    /**
+     * Takes the quantity out of the in-memory stock of a hot product, without touching the database.
+     *
+     * @param productId the ID of a hot product
+     * @param quantity the quantity to reserve
+     * @return true if the quantity was reserved, false if not enough stock is left
+     */
+    public boolean tryReserve(Long productId, int quantity){
+        HotSku sku = sku(productId);
+        int start = ThreadLocalRandom.current().nextInt(stripes);
+        long missing = quantity;
+        for(int i = 0; i < stripes && missing > 0; i++){
+            missing -= sku.take(index(start + i), missing);
+        }
+        if(missing > 0){
+            // Not enough in all counters together, put back what was taken
+            sku.counters.addAndGet(index(start), quantity - missing);
+            return false;
+        }
+        sku.sold.add(quantity);
+        return true;
+    }
+
+    /**
+     * Puts a reserved quantity back, e.g. when the order it was reserved for is rolled back.
+     *
+     * @param productId the ID of a hot product
+     * @param quantity the quantity to release
+     */
+    public void release(Long productId, int quantity){
+        HotSku sku = sku(productId);
+        sku.put(index(ThreadLocalRandom.current().nextInt(stripes)), index(0), quantity);
+        sku.sold.add(-quantity);
+    }
+
+    /**
+     * Returns the in-memory stock of a hot product, which already excludes sales not yet written back.
+     *
+     * @param productId the ID of a hot product
+     * @return the quantity left to sell
+     */
+    public int getAvailable(Long productId){
+        HotSku sku = sku(productId);
+        long available = 0;
+        for(int i = 0; i < stripes; i++){
+            available += sku.counters.get(index(i));
+        }
+        // A shortfall from a reduction counts as nothing left
+        return (int) Math.max(0, available);
+    }
+
+    /**
+     * Changes the in-memory stock of a hot product by the given amount, used when the inventory is edited.
+     * A reduction is taken from all counters, and what they do not hold is kept as a shortfall on the first
+     * counter that stock added later has to make up first.
+     * The stock is not loaded if it is not in memory yet, it is read from the product on first use.
+     *
+     * @param productId the ID of the product
+     * @param delta the amount added to the stock, negative to remove stock
+     */
+    public void adjust(Long productId, int delta){
+        HotSku sku = skus.get(productId);
+        if(sku == null){
+            return;
+        }
+        if(delta >= 0){
+            sku.put(index(0), index(0), delta);
+            return;
+        }
+        long missing = -(long) delta;
+        for(int i = 0; i < stripes && missing > 0; i++){
+            missing -= sku.take(index(i), missing);
+        }
+        if(missing > 0){
+            sku.counters.addAndGet(index(0), -missing);
+        }
+    }
+
+    /**
+     * Runs an edit of the product's stored inventory between two write-backs of sold quantities, so the
+     * inventory the edit reads stays current until it commits. The edit must commit before it returns.
+     * Edits of products that are not hot SKUs run right away.
+     *
+     * @param productId the ID of the product
+     * @param edit reads, changes and commits the inventory
+     * @return the result of the edit
+     */
+    public <T> T editInventory(Long productId, Supplier<T> edit){
+        if(!isHot(productId)){
+            return edit.get();
+        }
+        synchronized (writeBackLock) {
+            return edit.get();
+        }
+    }
+
+    /**
+     * Background task: writes the quantities sold since the last run back to the products, in one transaction.
+     */
+    void reconcile(){
+        synchronized (writeBackLock) {
+            writeBack();
+        }
+    }
+
+    private void writeBack(){
+        Map<Long, Long> sold = new LinkedHashMap<>();
+        skus.forEach((productId, sku) -> {
+            long quantity = sku.sold.sumThenReset();
+            if(quantity != 0){
+                sold.put(productId, quantity);
+            }
+        });
+        if(sold.isEmpty()){
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    sold.forEach((productId, quantity) -> productRepository.subtractInventory(productId, quantity.intValue())));
+            sold.keySet().forEach(productCache::evict);
+        } catch (RuntimeException e) {
+            // Keep the quantities for the next run
+            System.out.println("Failed to write back hot SKU inventory: " + e.getMessage());
+            sold.forEach((productId, quantity) -> skus.get(productId).sold.add(quantity));
+        }
+    }
+
+    private HotSku sku(Long productId){
+        if(!isHot(productId)){
+            throw new IllegalArgumentException("Product " + productId + " is not a hot SKU");
+        }
+        return skus.computeIfAbsent(productId, id -> {
+            int inventory = productRepository.findInventoryById(id).orElseThrow(() -> new ResourceNotFoundException("Product not found"));
+            HotSku sku = new HotSku(stripes);
+            // Spread the stock evenly, the first counters get the remainder
+            for(int i = 0; i < stripes; i++){
+                sku.counters.set(index(i), inventory / stripes + (i < inventory % stripes ? 1 : 0));
+            }
+            return sku;
+        });
+    }
+
+    private int index(int stripe){
+        return (stripe % stripes) * PADDING;
+    }
+
+    /**
+     * The in-memory stock of one hot product.
+     */
+    private static class HotSku {
+        private final AtomicLongArray counters;
+        private final LongAdder sold = new LongAdder();
+
+        private HotSku(int stripes) {
+            this.counters = new AtomicLongArray(stripes * PADDING);
+        }
+
+        /**
+         * Adds stock to a counter, or to the first counter while it holds a shortfall, so that a shortfall
+         * is never hidden by stock on the other counters.
+         */
+        private void put(int index, int firstIndex, long quantity){
+            counters.addAndGet(counters.get(firstIndex) < 0 ? firstIndex : index, quantity);
+        }
+
+        /**
+         * Takes up to the wanted quantity from one counter.
+         *
+         * @return the quantity taken
+         */
+        private long take(int index, long wanted){
+            while(true){
+                long current = counters.get(index);
+                if(current <= 0){
+                    return 0;
+                }
+                long taken = Math.min(current, wanted);
+                if(counters.compareAndSet(index, current, current - taken)){
+                    return taken;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.shopping.e_commerce.Services.inventory;
+
+import com.shopping.e_commerce.exceptions.InsufficientStockException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Time-bounded holds on the stock of products in carts, enabled with {@code inventory.holds.enabled=true}.
+ * Putting a product in a cart holds its quantity for {@code inventory.holds.ttl-seconds}; the hold is
+ * refused if the stock not held by other carts is too small, and every change of the cart line renews it.
+ * The quantity held per product is kept as a running total, so the stock available to sell is the
+ * inventory minus that total without looking at individual holds. Expired holds are released by a
+ * background sweeper that takes them from a queue ordered by expiry, in batches of
+ * {@code inventory.holds.sweep-batch-size}. Holds live in memory and are lost on restart, checkout
+ * still checks the inventory itself.
+ */
+@Component
+public class InventoryHolds {
+
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final int sweepBatchSize;
+    private final Map<Long, Integer> heldByProduct = new ConcurrentHashMap<>();
+    // Guarded by the lock, as are the quantity and expiry of every hold
+    private final Map<Long, Map<Long, Hold>> holdsByCart = new HashMap<>();
+    private final PriorityQueue<Expiry> expiries = new PriorityQueue<>(Comparator.comparingLong(Expiry::expiresAt));
+    private final Object lock = new Object();
+    private final ScheduledExecutorService sweeper;
+
+    public InventoryHolds(@Value("${inventory.holds.enabled:false}") boolean enabled,
+                          @Value("${inventory.holds.ttl-seconds:900}") long ttlSeconds,
+                          @Value("${inventory.holds.sweep-interval-ms:1000}") long sweepIntervalMillis,
+                          @Value("${inventory.holds.sweep-batch-size:500}") int sweepBatchSize) {
+        this.enabled = enabled;
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.sweepBatchSize = sweepBatchSize;
+        if(enabled){
+            this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "inventory-hold-sweeper");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.sweeper.scheduleWithFixedDelay(() -> sweep(System.currentTimeMillis()), sweepIntervalMillis, sweepIntervalMillis, TimeUnit.MILLISECONDS);
+        }else{
+            this.sweeper = null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        if(sweeper != null){
+            sweeper.shutdownNow();
+        }
+    }
+
+    /**
+     * Sets the quantities a cart holds of some products and renews their holds. Either all holds are
+     * changed or, if one of the products does not have enough stock available, none.
+     *
+     * @param cartId the ID of the cart
+     * @param quantities the new quantity in the cart keyed by product ID, 0 to release the hold
+     * @param inventory reads the current inventory of a product; only called when holds are enabled and
+     *                  before taking the lock, so it may go to the database
+     * @throws InsufficientStockException if a product does not have enough stock that is not held by other carts
+     */
+    public void hold(Long cartId, Map<Long, Integer> quantities, Function<Long, Integer> inventory){
+        if(!enabled){
+            return;
+        }
+        Map<Long, Integer> inventories = new HashMap<>();
+        quantities.forEach((productId, quantity) -> {
+            if(quantity > 0){
+                inventories.put(productId, inventory.apply(productId));
+            }
+        });
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        synchronized (lock) {
+            Map<Long, Hold> holds = holdsByCart.computeIfAbsent(cartId, id -> new HashMap<>());
+            // Check every product before holding any of them
+            quantities.forEach((productId, quantity) -> {
+                Hold hold = holds.get(productId);
+                int increase = quantity - (hold == null ? 0 : hold.quantity);
+                if(increase > 0 && inventories.get(productId) - heldByProduct.getOrDefault(productId, 0) < increase){
+                    throw new InsufficientStockException("Not enough inventory for product " + productId);
+                }
+            });
+            quantities.forEach((productId, quantity) -> {
+                Hold hold = holds.computeIfAbsent(productId, id -> new Hold(cartId, productId));
+                heldByProduct.merge(productId, quantity - hold.quantity, Integer::sum);
+                hold.quantity = quantity;
+                if(quantity == 0){
+                    holds.remove(productId);
+                }else{
+                    hold.expiresAt = expiresAt;
+                    expiries.add(new Expiry(hold, expiresAt));
+                }
+            });
+            if(holds.isEmpty()){
+                holdsByCart.remove(cartId);
+            }
+        }
+    }
+
+    /**
+     * Returns the quantities a cart holds of some products, 0 for products it holds none of.
+     *
+     * @param cartId the ID of the cart
+     * @param productIds the IDs of the products
+     * @return the held quantity keyed by product ID, empty when holds are disabled
+     */
+    public Map<Long, Integer> getHeld(Long cartId, Collection<Long> productIds){
+        Map<Long, Integer> held = new HashMap<>();
+        if(!enabled){
+            return held;
+        }
+        synchronized (lock) {
+            Map<Long, Hold> holds = holdsByCart.getOrDefault(cartId, Map.of());
+            productIds.forEach(productId -> {
+                Hold hold = holds.get(productId);
+                held.put(productId, hold == null ? 0 : hold.quantity);
+            });
+        }
+        return held;
+    }
+
+    /**
+     * Sets the holds of a cart back to quantities it held before, e.g. when the cart change they were taken
+     * for could not be written. The stock is not checked again, it was held already.
+     *
+     * @param cartId the ID of the cart
+     * @param quantities the quantities returned by {@link #getHeld(Long, Collection)}
+     */
+    public void restore(Long cartId, Map<Long, Integer> quantities){
+        hold(cartId, quantities, productId -> Integer.MAX_VALUE);
+    }
+
+    /**
+     * Releases the hold of a cart on a product, e.g. when the product is removed from the cart.
+     *
+     * @param cartId the ID of the cart
+     * @param productId the ID of the product
+     */
+    public void release(Long cartId, Long productId){
+        hold(cartId, Map.of(productId, 0), id -> 0);
+    }
+
+    /**
+     * Releases all holds of a cart, when the cart is checked out or cleared.
+     *
+     * @param cartId the ID of the cart
+     */
+    public void releaseCart(Long cartId){
+        if(!enabled){
+            return;
+        }
+        synchronized (lock) {
+            Map<Long, Hold> holds = holdsByCart.remove(cartId);
+            if(holds != null){
+                holds.values().forEach(this::releaseHeld);
+            }
+        }
+    }
+
+    /**
+     * Returns the stock of a product that is not held by any cart.
+     *
+     * @param productId the ID of the product
+     * @param inventory the inventory of the product
+     * @return the quantity available to sell
+     */
+    public int getAvailable(Long productId, int inventory){
+        return inventory - heldByProduct.getOrDefault(productId, 0);
+    }
+
+    /**
+     * Releases the holds that expired by the given time, taking the lock once per batch so that carts are not blocked
+     * by a long sweep. Queue entries of holds that were renewed or released since are skipped.
+     *
+     * @param now the current time in milliseconds
+     */
+    void sweep(long now){
+        boolean more = true;
+        while(more){
+            synchronized (lock) {
+                for(int i = 0; i < sweepBatchSize; i++){
+                    Expiry expiry = expiries.peek();
+                    if(expiry == null || expiry.expiresAt() > now){
+                        more = false;
+                        break;
+                    }
+                    expiries.poll();
+                    Hold hold = expiry.hold();
+                    Map<Long, Hold> holds = holdsByCart.get(hold.cartId);
+                    if(hold.expiresAt == expiry.expiresAt() && holds != null && holds.get(hold.productId) == hold){
+                        holds.remove(hold.productId);
+                        if(holds.isEmpty()){
+                            holdsByCart.remove(hold.cartId);
+                        }
+                        releaseHeld(hold);
+                    }
+                }
+            }
+        }
+    }
+
+    private void releaseHeld(Hold hold){
+        heldByProduct.computeIfPresent(hold.productId, (id, held) -> held == hold.quantity ? null : held - hold.quantity);
+        hold.quantity = 0;
+    }
+
+    /**
+     * The quantity of a product held by a cart.
+     */
+    private static class Hold {
+        private final Long cartId;
+        private final Long productId;
+        private int quantity;
+        private long expiresAt;
+
+        private Hold(Long cartId, Long productId) {
+            this.cartId = cartId;
+            this.productId = productId;
+        }
+    }
+
+    private record Expiry(Hold hold, long expiresAt) {
+    }
+}
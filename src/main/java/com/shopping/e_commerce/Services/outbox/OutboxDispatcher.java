@@ -0,0 +1,126 @@
+package com.shopping.e_commerce.Services.outbox;
+
+import com.shopping.e_commerce.Entity.OutboxEvent;
+import com.shopping.e_commerce.Enums.OutboxEventStatus;
+import com.shopping.e_commerce.Repository.OutboxEventRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Background workers handing outbox events to their handlers after the writing transaction committed.
+ * Each of the {@code outbox.workers} workers polls every {@code outbox.poll-interval-ms} and claims up to
+ * {@code outbox.batch-size} due events with {@code SKIP LOCKED}, so workers never wait for each other or
+ * receive the same event. Claiming leases an event for {@code outbox.lease-seconds}, and the handlers run
+ * outside of any transaction. A failed event is retried with exponential backoff starting at
+ * {@code outbox.backoff-ms}, and marked FAILED after {@code outbox.max-attempts} attempts.
+ */
+@Component
+public class OutboxDispatcher {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, List<OutboxEventHandler>> handlers;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration lease;
+    private final long backoffMillis;
+    private final long maxBackoffMillis;
+    private final ScheduledExecutorService workers;
+
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository,
+                            PlatformTransactionManager transactionManager,
+                            List<OutboxEventHandler> handlers,
+                            @Value("${outbox.workers:2}") int workers,
+                            @Value("${outbox.poll-interval-ms:500}") long pollIntervalMillis,
+                            @Value("${outbox.batch-size:50}") int batchSize,
+                            @Value("${outbox.max-attempts:10}") int maxAttempts,
+                            @Value("${outbox.lease-seconds:60}") long leaseSeconds,
+                            @Value("${outbox.backoff-ms:1000}") long backoffMillis,
+                            @Value("${outbox.max-backoff-ms:300000}") long maxBackoffMillis) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.handlers = handlers.stream().collect(Collectors.groupingBy(OutboxEventHandler::getEventType));
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.backoffMillis = backoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newScheduledThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "outbox-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for(int i = 0; i < workers; i++){
+            // Staggered so the workers do not all poll at the same moment
+            this.workers.scheduleWithFixedDelay(this::poll, pollIntervalMillis * (i + 1) / workers, pollIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        workers.shutdownNow();
+    }
+
+    /**
+     * Worker task: claims a batch of due events and dispatches them one by one.
+     *
+     * @return the number of events claimed
+     */
+    int poll(){
+        try {
+            List<OutboxEvent> events = claim();
+            events.forEach(this::dispatch);
+            return events.size();
+        } catch (RuntimeException e) {
+            // E.g. the database is unavailable, the worker tries again on its next run
+            System.out.println("Failed to poll the outbox: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private List<OutboxEvent> claim(){
+        Instant now = Instant.now();
+        return transactionTemplate.execute(status -> {
+            List<OutboxEvent> events = outboxEventRepository.claimDue(now, batchSize);
+            // Written on commit, which also releases the row locks
+            events.forEach(event -> {
+                event.setAttempts(event.getAttempts() + 1);
+                event.setNextAttemptAt(now.plus(lease));
+            });
+            return events;
+        });
+    }
+
+    private void dispatch(OutboxEvent event){
+        try {
+            for(OutboxEventHandler handler : handlers.getOrDefault(event.getEventType(), List.of())){
+                handler.handle(event);
+            }
+            transactionTemplate.executeWithoutResult(status -> outboxEventRepository.deleteEvent(event.getId()));
+        } catch (Exception e) {
+            boolean giveUp = event.getAttempts() >= maxAttempts;
+            long delay = Math.min(maxBackoffMillis, backoffMillis << Math.min(event.getAttempts() - 1, 20));
+            String error = String.valueOf(e.getMessage());
+            transactionTemplate.executeWithoutResult(status -> outboxEventRepository.recordFailure(event.getId(),
+                    giveUp ? OutboxEventStatus.FAILED : OutboxEventStatus.PENDING,
+                    Instant.now().plusMillis(delay),
+                    error.substring(0, Math.min(error.length(), MAX_ERROR_LENGTH))));
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.shopping.e_commerce.Services.outbox;
+
+import com.shopping.e_commerce.Entity.OutboxEvent;
+
+/**
+ * Side effect run for outbox events of one type, e.g. sending the confirmation mail of a placed order.
+ * Handlers are picked up as Spring beans. An event is retried when any of its handlers throws, so all
+ * handlers of a type may see the same event more than once and must tolerate that.
+ */
+public interface OutboxEventHandler {
+    String getEventType();
+    void handle(OutboxEvent event) throws Exception;
+}
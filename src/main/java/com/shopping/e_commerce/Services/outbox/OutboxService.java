@@ -0,0 +1,41 @@
+package com.shopping.e_commerce.Services.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopping.e_commerce.Entity.OutboxEvent;
+import com.shopping.e_commerce.Repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service class writing events to the transactional outbox.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    @Autowired
+    private final OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Writes an event to the outbox as part of the caller's transaction, so it is dispatched
+     * if and only if the transaction commits.
+     *
+     * @param eventType the type handlers register for
+     * @param event the event, stored as JSON
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(String eventType, Object event){
+        try {
+            outboxEventRepository.save(new OutboxEvent(eventType, objectMapper.writeValueAsString(event)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize " + eventType + " event", e);
+        }
+    }
+}
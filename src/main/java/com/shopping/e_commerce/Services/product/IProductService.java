@@ -1,20 +1,32 @@
 package com.shopping.e_commerce.Services.product;
 
 import com.shopping.e_commerce.Entity.Product;
+import com.shopping.e_commerce.Enums.ProductSort;
 import com.shopping.e_commerce.dto.ProductDTO.AddProductRequest;
 import com.shopping.e_commerce.dto.ProductDTO.ProductDto;
+import com.shopping.e_commerce.dto.ProductDTO.ProductPageDto;
 import com.shopping.e_commerce.dto.ProductDTO.UpdateProductRequest;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 /**
  * Interface defining the operations for managing products in the e-commerce application.
  */
 public interface IProductService {
     Product addProduct(AddProductRequest addRequest);
     Product getProductById(Long productId);
+    ProductDto getProductDtoById(Long productId);
+    List<Product> getProductsByIds(Collection<Long> productIds);
+    int getInventory(Long productId);
+    int getAvailableToSell(Long productId);
     Product updateProductById(UpdateProductRequest request, Long productId);
     void deleteProductById(Long productId);
     List<Product> getAllProducts();
+    ProductPageDto getProductPage(String cursor, int size, ProductSort sort);
+    void exportProducts(OutputStream outputStream) throws IOException;
     List<Product> getProductsByCategory(String category);
     List<Product> getProductsByBrand(String brand);
     List<Product> getProductsByCategoryAndBrand(String category,String brand);
@@ -25,4 +37,6 @@ public interface IProductService {
     List<ProductDto> getConvertedProducts(List<Product> products);
 
     public ProductDto convertToDTO(Product product);
+
+    Map<String, Map<String, Long>> getCacheStats();
 }
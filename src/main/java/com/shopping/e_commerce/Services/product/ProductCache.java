@@ -0,0 +1,132 @@
+package com.shopping.e_commerce.Services.product;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.shopping.e_commerce.Entity.Category;
+import com.shopping.e_commerce.Entity.Product;
+import com.shopping.e_commerce.dto.ProductDTO.ProductDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Bounded in-process cache of products and their DTOs keyed by product ID.
+ * Entries are evicted when the cache is full or when they are older than the configured time to live,
+ * and must be invalidated whenever a product, its images or its inventory change.
+ * Products are cached as immutable snapshots of their columns and every read returns a new detached Product,
+ * so callers on different threads never share an entity and never reach a lazy collection of a closed session.
+ */
+@Component
+public class ProductCache {
+
+    private final Cache<Long, CachedProduct> products;
+    private final Cache<Long, ProductDto> productDtos;
+
+    public ProductCache(@Value("${products.cache.maximum-size:10000}") long maximumSize,
+                        @Value("${products.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.products = newCache(maximumSize, ttlSeconds);
+        this.productDtos = newCache(maximumSize, ttlSeconds);
+    }
+
+    private static <V> Cache<Long, V> newCache(long maximumSize, long ttlSeconds){
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns a copy of the cached product, loading and caching it on a miss. The copy has no images or reviews,
+     * and its inventory may be as old as the time to live.
+     *
+     * @param productId the ID of the product
+     * @param loader loads the product from the database, may throw if the product does not exist
+     * @return a new detached product
+     */
+    public Product getProduct(Long productId, Function<Long, Product> loader){
+        return products.get(productId, id -> CachedProduct.of(loader.apply(id))).toProduct();
+    }
+
+    /**
+     * Returns the cached product DTO, building and caching it on a miss.
+     *
+     * @param productId the ID of the product
+     * @param loader builds the DTO, may throw if the product does not exist
+     * @return the product DTO
+     */
+    public ProductDto getProductDto(Long productId, Function<Long, ProductDto> loader){
+        return productDtos.get(productId, loader);
+    }
+
+    /**
+     * Removes the product and its DTO from the cache.
+     *
+     * @param productId the ID of the product that changed
+     */
+    public void evict(Long productId){
+        products.invalidate(productId);
+        productDtos.invalidate(productId);
+    }
+
+    /**
+     * Removes only the product DTO, used when the images of a product change.
+     *
+     * @param productId the ID of the product whose DTO is stale
+     */
+    public void evictDto(Long productId){
+        productDtos.invalidate(productId);
+    }
+
+    /**
+     * Returns the hit, miss and eviction counters of both caches.
+     *
+     * @return the counters keyed by cache name
+     */
+    public Map<String, Map<String, Long>> getStats(){
+        Map<String, Map<String, Long>> stats = new LinkedHashMap<>();
+        stats.put("products", toMap(products.stats(), products.estimatedSize()));
+        stats.put("productDtos", toMap(productDtos.stats(), productDtos.estimatedSize()));
+        return stats;
+    }
+
+    /**
+     * The columns of a product and of its category, taken when the product was loaded.
+     */
+    private record CachedProduct(Long id, String name, String brand, String description, String code,
+                                 BigDecimal price, int inventory, Long categoryId, String categoryName) {
+
+        private static CachedProduct of(Product product){
+            Category category = product.getCategory();
+            return new CachedProduct(product.getId(), product.getName(), product.getBrand(), product.getDescription(),
+                    product.getCode(), product.getPrice(), product.getInventory(),
+                    category == null ? null : category.getId(), category == null ? null : category.getName());
+        }
+
+        private Product toProduct(){
+            Category category = null;
+            if(categoryId != null){
+                category = new Category(categoryName);
+                category.setId(categoryId);
+            }
+            Product product = new Product(name, brand, description, code, price, inventory, category);
+            product.setId(id);
+            return product;
+        }
+    }
+
+    private static Map<String, Long> toMap(CacheStats cacheStats, long size){
+        Map<String, Long> counters = new LinkedHashMap<>();
+        counters.put("size", size);
+        counters.put("hits", cacheStats.hitCount());
+        counters.put("misses", cacheStats.missCount());
+        counters.put("evictions", cacheStats.evictionCount());
+        return counters;
+    }
+}
@@ -1,26 +1,47 @@
 package com.shopping.e_commerce.Services.product;
 
 import com.shopping.e_commerce.Entity.Category;
-import com.shopping.e_commerce.Entity.Image;
 import com.shopping.e_commerce.Entity.Product;
+import com.shopping.e_commerce.Enums.ProductSort;
 import com.shopping.e_commerce.Repository.CategoryRepository;
 import com.shopping.e_commerce.Repository.ImageRepository;
 import com.shopping.e_commerce.Repository.ProductRepository;
+import com.shopping.e_commerce.Repository.ReviewRepository;
+import com.shopping.e_commerce.Services.inventory.HotSkuInventory;
+import com.shopping.e_commerce.Services.inventory.InventoryHolds;
 import com.shopping.e_commerce.dto.ImageDTO.ImageDto;
 import com.shopping.e_commerce.dto.ProductDTO.AddProductRequest;
 import com.shopping.e_commerce.dto.ProductDTO.ProductDto;
+import com.shopping.e_commerce.dto.ProductDTO.ProductPageDto;
 import com.shopping.e_commerce.dto.ProductDTO.UpdateProductRequest;
+import com.shopping.e_commerce.dto.ReviewDto.ReviewDto;
 import com.shopping.e_commerce.exceptions.AlreadyExistsException;
 import com.shopping.e_commerce.exceptions.ResourceNotFoundException;
+import com.shopping.e_commerce.mapper.ImageMapper;
+import com.shopping.e_commerce.mapper.ProductMapper;
+import com.shopping.e_commerce.mapper.ReviewMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 
 
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 /**
  * Service class for managing products in the e-commerce application.
@@ -29,6 +50,9 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class ProductService implements IProductService{
 
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int EXPORT_CHUNK_SIZE = 500;
+
     @Autowired
     private final ProductRepository productRepository;
 
@@ -39,7 +63,34 @@ public class ProductService implements IProductService{
     private final ImageRepository imageRepository;
 
     @Autowired
-    private final ModelMapper modelMapper;
+    private final ReviewRepository reviewRepository;
+
+    @Autowired
+    private final ProductMapper productMapper;
+
+    @Autowired
+    private final ImageMapper imageMapper;
+
+    @Autowired
+    private final ReviewMapper reviewMapper;
+
+    @Autowired
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    private final EntityManager entityManager;
+
+    @Autowired
+    private final ProductCache productCache;
+
+    @Autowired
+    private final HotSkuInventory hotSkuInventory;
+
+    @Autowired
+    private final InventoryHolds inventoryHolds;
+
+    @Autowired
+    private final TransactionTemplate transactionTemplate;
 
     /**
      * Adds a new product to the repository.
@@ -86,7 +137,8 @@ public class ProductService implements IProductService{
                 );
     }
     /**
-     * Retrieves a product by its ID.
+     * Retrieves a product by its ID, reading through the product cache.
+     * The product is a detached copy without images or reviews, and its inventory may be out of date.
      *
      * @param productId the ID of the product
      * @return the corresponding Product object
@@ -94,11 +146,65 @@ public class ProductService implements IProductService{
      */
     @Override
     public Product getProductById(Long productId) {
-        return productRepository.findById(productId).orElseThrow(() -> new ResourceNotFoundException("Product not found"));
+        return productCache.getProduct(productId, id ->
+                productRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Product not found")));
+    }
+
+    /**
+     * Retrieves several products with a single query. Products that do not exist are left out.
+     *
+     * @param productIds the IDs of the products
+     * @return the products found
+     */
+    @Override
+    public List<Product> getProductsByIds(Collection<Long> productIds) {
+        return productRepository.findAllById(productIds);
+    }
+
+    /**
+     * Retrieves a product with its images and reviews as a ProductDto, reading through the product cache.
+     *
+     * @param productId the ID of the product
+     * @return the corresponding ProductDto
+     * @throws ResourceNotFoundException if the product is not found
+     */
+    @Override
+    public ProductDto getProductDtoById(Long productId) {
+        return productCache.getProductDto(productId, id -> convertToDTO(getProductById(id)));
+    }
+
+    /**
+     * Reads the current inventory of a product from the database, bypassing the product cache.
+     * For a hot SKU the stock left in memory is returned, as sales are written back to the database later.
+     *
+     * @param productId the ID of the product
+     * @return the inventory of the product
+     * @throws ResourceNotFoundException if the product is not found
+     */
+    @Override
+    public int getInventory(Long productId) {
+        if(hotSkuInventory.isHot(productId)){
+            return hotSkuInventory.getAvailable(productId);
+        }
+        return productRepository.findInventoryById(productId).orElseThrow(() -> new ResourceNotFoundException("Product not found"));
+    }
+
+    /**
+     * Returns the stock of a product that is not held by any cart.
+     *
+     * @param productId the ID of the product
+     * @return the quantity available to sell
+     * @throws ResourceNotFoundException if the product is not found
+     */
+    @Override
+    public int getAvailableToSell(Long productId) {
+        return inventoryHolds.getAvailable(productId, getInventory(productId));
     }
 
     /**
      * Updates a product by its ID.
+     * The inventory of a hot SKU is also written by the background write-back of sold quantities, so its edit
+     * is read, saved and committed in one transaction between two write-backs.
      *
      * @param request the request containing updated product details
      * @param productId the ID of the product to update
@@ -107,10 +213,13 @@ public class ProductService implements IProductService{
      */
     @Override
     public Product updateProductById(UpdateProductRequest request, Long productId) {
-        return productRepository.findById(productId)
-                .map(existingProduct -> updateExistingProduct(existingProduct,request))
-                .map(productRepository :: save)
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found."));
+        Product product = hotSkuInventory.editInventory(productId, () -> transactionTemplate.execute(status ->
+                productRepository.findById(productId)
+                        .map(existingProduct -> updateExistingProduct(existingProduct,request))
+                        .map(productRepository :: save)
+                        .orElseThrow(() -> new ResourceNotFoundException("Product not found."))));
+        productCache.evict(productId);
+        return product;
     }
 
     /**
@@ -125,7 +234,9 @@ public class ProductService implements IProductService{
         existingProduct.setBrand(request.getBrand());
         existingProduct.setCode(request.getCode());
         existingProduct.setDescription(request.getDescription());
-         existingProduct.setInventory(request.getInventory());
+        // Apply the edit to the in-memory stock too if the product is a hot SKU
+        hotSkuInventory.adjust(existingProduct.getId(), request.getInventory() - existingProduct.getInventory());
+        existingProduct.setInventory(request.getInventory());
         existingProduct.setPrice(request.getPrice());
 
         Category category = categoryRepository.findByName(request.getCategory().getName());
@@ -143,6 +254,7 @@ public class ProductService implements IProductService{
     @Override
     public void deleteProductById(Long productId) {
         productRepository.findById(productId).ifPresentOrElse(productRepository::delete, () -> {throw new ResourceNotFoundException("Product not found");});
+        productCache.evict(productId);
     }
 
 
@@ -156,6 +268,107 @@ public class ProductService implements IProductService{
         return productRepository.findAll();
     }
 
+    /**
+     * Retrieves one page of products using keyset pagination.
+     * Every page seeks past the last product of the previous page, so deep pages cost the same as the first one.
+     *
+     * @param cursor the opaque cursor returned with the previous page, or null for the first page
+     * @param size the maximum number of products on the page
+     * @param sort the field the products are ordered by, ties are broken by product ID
+     * @return the page of products and the cursor of the next page, which is null on the last page
+     * @throws IllegalArgumentException if the cursor is malformed or was issued for another sort order
+     */
+    @Override
+    public ProductPageDto getProductPage(String cursor, int size, ProductSort sort) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // Fetch one extra row to find out whether there is a next page
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        List<Product> products = cursor == null || cursor.isBlank()
+                ? findFirstPage(sort, limit)
+                : findPageAfter(sort, decodeCursor(cursor, sort), limit);
+
+        String nextCursor = null;
+        if(products.size() > pageSize){
+            products = products.subList(0, pageSize);
+            nextCursor = encodeCursor(products.get(pageSize - 1), sort);
+        }
+        return new ProductPageDto(getConvertedProducts(products), nextCursor);
+    }
+
+    /**
+     * Writes the whole catalog to the output stream as newline-delimited JSON, one ProductDto per line.
+     * Products are read in keyset chunks and the persistence context is cleared after every chunk,
+     * so memory use stays bounded however large the catalog is.
+     *
+     * @param outputStream the stream to write the products to
+     * @throws IOException if writing to the stream fails
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportProducts(OutputStream outputStream) throws IOException {
+        Pageable chunk = PageRequest.of(0, EXPORT_CHUNK_SIZE);
+        List<Product> products = productRepository.findAllByOrderByIdAsc(chunk);
+        while(!products.isEmpty()){
+            for(ProductDto productDto : getConvertedProducts(products)){
+                outputStream.write(objectMapper.writeValueAsBytes(productDto));
+                outputStream.write('\n');
+            }
+            outputStream.flush();
+            Long lastId = products.get(products.size() - 1).getId();
+            // Detach the exported chunk so it can be garbage collected
+            entityManager.clear();
+            products = productRepository.findPageAfterId(lastId, chunk);
+        }
+    }
+
+    private List<Product> findFirstPage(ProductSort sort, Pageable limit){
+        return switch (sort) {
+            case ID -> productRepository.findAllByOrderByIdAsc(limit);
+            case PRICE -> productRepository.findFirstPageByPrice(limit);
+            case NAME -> productRepository.findFirstPageByName(limit);
+        };
+    }
+
+    private List<Product> findPageAfter(ProductSort sort, String[] position, Pageable limit){
+        Long afterId = Long.valueOf(position[1]);
+        // A cursor without a sort value was issued after a product whose value is null
+        boolean afterNull = position.length == 2;
+        return switch (sort) {
+            case ID -> productRepository.findPageAfterId(afterId, limit);
+            case PRICE -> afterNull ? productRepository.findPageAfterNullPrice(afterId, limit)
+                    : productRepository.findPageAfterPrice(new BigDecimal(position[2]), afterId, limit);
+            case NAME -> afterNull ? productRepository.findPageAfterNullName(afterId, limit)
+                    : productRepository.findPageAfterName(position[2], afterId, limit);
+        };
+    }
+
+    /**
+     * Encodes the sort order and the position of the last product on a page as an opaque cursor.
+     * A null price or name is encoded by leaving the sort value out.
+     */
+    private String encodeCursor(Product last, ProductSort sort){
+        String value = switch (sort) {
+            case ID -> null;
+            case PRICE -> last.getPrice() == null ? null : last.getPrice().toPlainString();
+            case NAME -> last.getName();
+        };
+        String position = sort + ":" + last.getId() + (value == null ? "" : ":" + value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor, ProductSort sort){
+        String[] position;
+        try {
+            position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", 3);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if(!position[0].equals(sort.name()) || position.length < 2 || (sort == ProductSort.ID && position.length != 2)){
+            throw new IllegalArgumentException("Invalid cursor for sort order " + sort);
+        }
+        return position;
+    }
+
     /**
      * Retrieves products by category name.
      *
@@ -227,13 +440,35 @@ public class ProductService implements IProductService{
 
     /**
      * Converts a list of Product entities to ProductDto objects.
+     * The images and reviews of all products are loaded with one query each and grouped by product ID,
+     * so the number of queries does not grow with the number of products.
      *
      * @param products the list of Product entities to convert
      * @return a list of converted ProductDto objects
      */
     @Override
     public List<ProductDto> getConvertedProducts(List<Product> products){
-        return products.stream().map(this::convertToDTO).toList();
+        if(products.isEmpty()){
+            return List.of();
+        }
+        List<Long> productIds = products.stream().map(Product::getId).toList();
+
+        Map<Long, List<ImageDto>> imagesByProduct = imageRepository.findImageViewsByProductIdIn(productIds)
+                .stream()
+                .collect(Collectors.groupingBy(ImageRepository.ProductImageView::getProductId,
+                        Collectors.mapping(imageMapper::toDto, Collectors.toList())));
+
+        Map<Long, List<ReviewDto>> reviewsByProduct = reviewRepository.findReviewViewsByProductIdIn(productIds)
+                .stream()
+                .collect(Collectors.groupingBy(ReviewRepository.ProductReviewView::getProductId,
+                        Collectors.mapping(reviewMapper::toDto, Collectors.toList())));
+
+        return products.stream().map(product -> {
+            ProductDto productDto = productMapper.toDto(product);
+            productDto.setImages(imagesByProduct.getOrDefault(product.getId(), List.of()));
+            productDto.setReviews(reviewsByProduct.getOrDefault(product.getId(), List.of()));
+            return productDto;
+        }).toList();
     }
     /**
      * Converts a Product entity to a ProductDto.
@@ -243,11 +478,16 @@ public class ProductService implements IProductService{
      */
     @Override
     public ProductDto convertToDTO(Product product){
-        ProductDto productDto = modelMapper.map(product, ProductDto.class);
-        List<Image> images = imageRepository.findByProductId(product.getId());
-        List<ImageDto> imagesDtos = images.stream().map(image -> modelMapper.map(image, ImageDto.class)).toList();
-        productDto.setImages(imagesDtos);
-        return productDto;
+        return getConvertedProducts(List.of(product)).get(0);
+    }
 
+    /**
+     * Returns the hit, miss and eviction counters of the product cache.
+     *
+     * @return the counters keyed by cache name
+     */
+    @Override
+    public Map<String, Map<String, Long>> getCacheStats(){
+        return productCache.getStats();
     }
 }
@@ -6,6 +6,7 @@ import com.shopping.e_commerce.Entity.User;
 import com.shopping.e_commerce.Repository.ProductRepository;
 import com.shopping.e_commerce.Repository.ReviewRepository;
 import com.shopping.e_commerce.Services.product.IProductService;
+import com.shopping.e_commerce.Services.product.ProductCache;
 import com.shopping.e_commerce.dto.ReviewDto.ReviewDto;
 import com.shopping.e_commerce.exceptions.ProductNotFoundException;
 import com.shopping.e_commerce.exceptions.ResourceNotFoundException;
@@ -27,6 +28,9 @@ public class ReviewService implements IReviewService{
     @Autowired
     private final ProductRepository productRepository;
 
+    @Autowired
+    private final ProductCache productCache;
+
     /**
      * Adds a review to a specific product.
      *
@@ -51,7 +55,9 @@ public class ReviewService implements IReviewService{
             review.setProduct(product);
             System.out.println("Review"+review);
             review.setUser(user);
-            return reviewRepository.save(review);
+            Review savedReview = reviewRepository.save(review);
+            productCache.evictDto(productId);
+            return savedReview;
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -65,7 +71,10 @@ public class ReviewService implements IReviewService{
      */
     @Override
     public void deleteReviewById(Long reviewId) {
-        reviewRepository.findById(reviewId).ifPresentOrElse(reviewRepository::delete, () -> {throw new ResourceNotFoundException("Review with product id "+ reviewId);});
+        reviewRepository.findById(reviewId).ifPresentOrElse(review -> {
+            reviewRepository.delete(review);
+            productCache.evictDto(review.getProduct().getId());
+        }, () -> {throw new ResourceNotFoundException("Review with product id "+ reviewId);});
     }
 
 
@@ -0,0 +1,15 @@
+package com.shopping.e_commerce.dto.CartDTO;
+
+import com.shopping.e_commerce.Enums.CartItemOperationType;
+import lombok.Data;
+
+/**
+ * One line change of a bulk cart update. ADD increases the quantity of the product in the cart,
+ * UPDATE sets it, and REMOVE deletes the product's line (quantity is ignored).
+ */
+@Data
+public class CartItemOperation {
+    private CartItemOperationType type;
+    private Long productId;
+    private Integer quantity;
+}
@@ -0,0 +1,15 @@
+package com.shopping.e_commerce.dto.ImageDTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImageUploadResultDto {
+    private String fileName;
+    private boolean success;
+    private ImageDto image;
+    private String error;
+}
@@ -0,0 +1,15 @@
+package com.shopping.e_commerce.dto.OrderDTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderPageDto {
+    private List<OrderDto> orders;
+    private String nextCursor;
+}
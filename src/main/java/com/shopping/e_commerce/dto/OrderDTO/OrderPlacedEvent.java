@@ -0,0 +1,20 @@
+package com.shopping.e_commerce.dto.OrderDTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderPlacedEvent {
+    public static final String TYPE = "OrderPlaced";
+
+    private Long orderId;
+    private Long userId;
+    private LocalDate orderDate;
+    private BigDecimal totalAmount;
+}
@@ -0,0 +1,15 @@
+package com.shopping.e_commerce.dto.ProductDTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductPageDto {
+    private List<ProductDto> products;
+    private String nextCursor;
+}
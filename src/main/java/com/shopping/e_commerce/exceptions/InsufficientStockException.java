@@ -0,0 +1,7 @@
+package com.shopping.e_commerce.exceptions;
+
+public class InsufficientStockException extends RuntimeException{
+    public InsufficientStockException(String message) {
+        super(message);
+    }
+}
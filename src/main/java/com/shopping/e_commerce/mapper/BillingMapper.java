@@ -0,0 +1,14 @@
+package com.shopping.e_commerce.mapper;
+
+import com.shopping.e_commerce.Entity.Billing;
+import com.shopping.e_commerce.dto.BillingDTO.BillingDto;
+import org.mapstruct.Mapper;
+
+/**
+ * Maps billing information to BillingDto.
+ */
+@Mapper(config = DtoMapperConfig.class)
+public interface BillingMapper {
+
+    BillingDto toDto(Billing billing);
+}
@@ -0,0 +1,21 @@
+package com.shopping.e_commerce.mapper;
+
+import com.shopping.e_commerce.Entity.Cart;
+import com.shopping.e_commerce.Entity.CartItem;
+import com.shopping.e_commerce.dto.CartDTO.CartDto;
+import com.shopping.e_commerce.dto.CartDTO.CartItemDto;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+/**
+ * Maps carts to CartDto, with their items and the product of every item.
+ */
+@Mapper(config = DtoMapperConfig.class, uses = ProductMapper.class)
+public interface CartMapper {
+
+    @Mapping(target = "cartId", source = "id")
+    CartDto toDto(Cart cart);
+
+    @Mapping(target = "itemId", source = "id")
+    CartItemDto toDto(CartItem item);
+}
@@ -0,0 +1,17 @@
+package com.shopping.e_commerce.mapper;
+
+import org.mapstruct.InjectionStrategy;
+import org.mapstruct.MapperConfig;
+import org.mapstruct.MappingConstants;
+import org.mapstruct.ReportingPolicy;
+
+/**
+ * Shared configuration of the generated entity/DTO mappers.
+ * The mappers are Spring beans wired through their constructors, and a DTO property that is neither
+ * mapped nor explicitly ignored fails the build, so every association a mapper traverses is a visible choice.
+ */
+@MapperConfig(componentModel = MappingConstants.ComponentModel.SPRING,
+        injectionStrategy = InjectionStrategy.CONSTRUCTOR,
+        unmappedTargetPolicy = ReportingPolicy.ERROR)
+public interface DtoMapperConfig {
+}
@@ -0,0 +1,19 @@
+package com.shopping.e_commerce.mapper;
+
+import com.shopping.e_commerce.Entity.Image;
+import com.shopping.e_commerce.Repository.ImageRepository;
+import com.shopping.e_commerce.dto.ImageDTO.ImageDto;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+/**
+ * Maps images to ImageDto, without reading the image content.
+ */
+@Mapper(config = DtoMapperConfig.class, imports = Image.class)
+public interface ImageMapper {
+
+    ImageDto toDto(Image image);
+
+    @Mapping(target = "downloadUrl", expression = "java(Image.downloadUrlOf(image.getId()))")
+    ImageDto toDto(ImageRepository.ProductImageView image);
+}
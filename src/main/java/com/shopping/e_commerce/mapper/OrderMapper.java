@@ -0,0 +1,25 @@
+package com.shopping.e_commerce.mapper;
+
+import com.shopping.e_commerce.Entity.Order;
+import com.shopping.e_commerce.Entity.OrderItem;
+import com.shopping.e_commerce.dto.OrderDTO.OrderDto;
+import com.shopping.e_commerce.dto.OrderDTO.OrderItemDto;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+/**
+ * Maps orders to OrderDto with their items. Of the user and the products only the columns
+ * copied into the DTO are read.
+ */
+@Mapper(config = DtoMapperConfig.class)
+public interface OrderMapper {
+
+    @Mapping(target = "userId", source = "user.id")
+    @Mapping(target = "items", source = "orderItems")
+    OrderDto toDto(Order order);
+
+    @Mapping(target = "productId", source = "product.id")
+    @Mapping(target = "productName", source = "product.name")
+    @Mapping(target = "productBrand", source = "product.brand")
+    OrderItemDto toDto(OrderItem item);
+}
@@ -0,0 +1,18 @@
+package com.shopping.e_commerce.mapper;
+
+import com.shopping.e_commerce.Entity.Product;
+import com.shopping.e_commerce.dto.ProductDTO.ProductDto;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+/**
+ * Maps products to ProductDto. Images and reviews are left out because ProductService attaches them
+ * in bulk, which keeps the mapper from lazily loading them one product at a time.
+ */
+@Mapper(config = DtoMapperConfig.class)
+public interface ProductMapper {
+
+    @Mapping(target = "images", ignore = true)
+    @Mapping(target = "reviews", ignore = true)
+    ProductDto toDto(Product product);
+}
@@ -0,0 +1,17 @@
+package com.shopping.e_commerce.mapper;
+
+import com.shopping.e_commerce.Entity.Review;
+import com.shopping.e_commerce.Repository.ReviewRepository;
+import com.shopping.e_commerce.dto.ReviewDto.ReviewDto;
+import org.mapstruct.Mapper;
+
+/**
+ * Maps reviews to ReviewDto, without loading the reviewed product or the reviewer.
+ */
+@Mapper(config = DtoMapperConfig.class)
+public interface ReviewMapper {
+
+    ReviewDto toDto(Review review);
+
+    ReviewDto toDto(ReviewRepository.ProductReviewView review);
+}
@@ -0,0 +1,14 @@
+package com.shopping.e_commerce.mapper;
+
+import com.shopping.e_commerce.Entity.ShippingInformation;
+import com.shopping.e_commerce.dto.ShippingInformationDTO.ShippingDto;
+import org.mapstruct.Mapper;
+
+/**
+ * Maps shipping information to ShippingDto.
+ */
+@Mapper(config = DtoMapperConfig.class)
+public interface ShippingMapper {
+
+    ShippingDto toDto(ShippingInformation shippingInformation);
+}
@@ -0,0 +1,16 @@
+package com.shopping.e_commerce.mapper;
+
+import com.shopping.e_commerce.Entity.User;
+import com.shopping.e_commerce.dto.UserDTO.UserDto;
+import org.mapstruct.Mapper;
+
+/**
+ * Maps users to UserDto with their billing and shipping information.
+ * UserDto has no orders, cart or reviews, as each of them would load a whole association
+ * (and the products behind it) for every user; they have their own endpoints.
+ */
+@Mapper(config = DtoMapperConfig.class, uses = {BillingMapper.class, ShippingMapper.class})
+public interface UserMapper {
+
+    UserDto toDto(User user);
+}
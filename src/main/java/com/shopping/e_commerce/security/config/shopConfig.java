@@ -5,7 +5,6 @@ import com.shopping.e_commerce.security.jwt.JwtAuthenticationFilter;
 import com.shopping.e_commerce.security.user.ShoppingUserDetailsService;
 import lombok.AllArgsConstructor;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -37,16 +36,6 @@ public class shopConfig {
 
     private static final List<String> SECURED_URL = List.of("/api/v1/cart/**","/api/v1/cartItems/**");
 
-    /**
-     * Bean for ModelMapper to convert between different object types.
-     *
-     * @return a ModelMapper instance.
-     */
-    @Bean
-    public ModelMapper modelMapper(){
-        return new ModelMapper();
-    }
-
     /**
      * Bean for password encoding using BCrypt.
      *
@@ -0,0 +1,166 @@
+package com.shopping.e_commerce.Repository;
+
+import com.shopping.e_commerce.Entity.Order;
+import com.shopping.e_commerce.Entity.User;
+import com.shopping.e_commerce.Enums.OrderStatus;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks with EXPLAIN that an order history page is read from the index declared on Order, without sorting.
+ * The explained statement is the SQL Hibernate generates for {@link OrderRepository#findOrderKeyPage}, captured
+ * while the repository method runs. The test runs on H2 in every build. H2 does not report when an index spares
+ * a sort behind an equality on its first column, so there the order of the query is compared with the order of
+ * the index instead. To check the MySQL plan, which reports both, point the test at
+ * a scratch MySQL 8 database, e.g. {@code mvn test -Dtest=OrderHistoryQueryPlanTest
+ * -Dit.mysql.url=jdbc:mysql://localhost:3306/ecommerce_test -Dit.mysql.username=... -Dit.mysql.password=...}.
+ * The schema of that database is created and dropped by the test.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class OrderHistoryQueryPlanTest {
+
+    private static final String MYSQL_URL = System.getProperty("it.mysql.url", "");
+    private static final List<String> statements = new ArrayList<>();
+
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Index index;
+
+    @DynamicPropertySource
+    static void dataSource(DynamicPropertyRegistry registry) {
+        if(MYSQL_URL.isEmpty()){
+            registry.add("spring.datasource.url", () -> "jdbc:h2:mem:orders;MODE=MySQL;NON_KEYWORDS=USER;DATABASE_TO_LOWER=TRUE");
+        }else{
+            registry.add("spring.datasource.url", () -> MYSQL_URL);
+            registry.add("spring.datasource.username", () -> System.getProperty("it.mysql.username"));
+            registry.add("spring.datasource.password", () -> System.getProperty("it.mysql.password"));
+        }
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+    }
+
+    @TestConfiguration
+    static class SqlCapture {
+        @Bean
+        HibernatePropertiesCustomizer statementCapture() {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, (StatementInspector) sql -> {
+                statements.add(sql);
+                return sql;
+            });
+        }
+    }
+
+    @BeforeEach
+    void createOrders() {
+        index = Arrays.stream(Order.class.getAnnotation(Table.class).indexes())
+                .filter(declared -> declared.name().equals("idx_orders_user_date_id")).findFirst().orElseThrow();
+        List<Long> userIds = userRepository.saveAll(IntStream.rangeClosed(1, 200).mapToObj(i -> {
+            User user = new User();
+            user.setEmail("orders-" + i + "@example.com");
+            return user;
+        }).toList()).stream().map(User::getId).toList();
+        // Many users with many orders each, so that the optimizer prefers the index over a scan
+        List<Object[]> rows = new ArrayList<>();
+        LocalDate start = LocalDate.of(2020, 1, 1);
+        for(int user = 0; user < userIds.size(); user++){
+            for(int order = 0; order < 50; order++){
+                rows.add(new Object[]{Date.valueOf(start.plusDays((user * 31L + order * 17L) % 1500)),
+                        order % 5 == 0 ? "DELIVERED" : "PENDING", userIds.get(user)});
+            }
+        }
+        jdbcTemplate.batchUpdate("insert into orders (order_date, order_status, total_amount, user_id) values (?, ?, 10, ?)", rows);
+        if(isMySql()){
+            jdbcTemplate.execute("analyze table orders");
+        }
+    }
+
+    @Test
+    void firstPageUsesTheIndex() {
+        assertIndexUsed(LocalDate.of(2020, 1, 1), LocalDate.of(9999, 12, 31), 0, null);
+    }
+
+    @Test
+    void laterFilteredPageUsesTheIndex() {
+        assertIndexUsed(LocalDate.of(2021, 1, 1), LocalDate.of(2022, 6, 1), 4711, OrderStatus.DELIVERED);
+    }
+
+    private void assertIndexUsed(LocalDate from, LocalDate afterDate, long afterId, OrderStatus status) {
+        statements.clear();
+        orderRepository.findOrderKeyPage(42L, from, afterDate, afterId, status, PageRequest.of(0, 21));
+        assertEquals(1, statements.size(), statements::toString);
+        String pageQuery = statements.get(0);
+
+        // Parameters in the order of the JPQL query, then the row limit
+        String statusName = status == null ? null : status.name();
+        List<Object> parameters = new ArrayList<>(List.of(42L, Date.valueOf(from), Date.valueOf(afterDate), Date.valueOf(afterDate), afterId));
+        parameters.add(statusName);
+        parameters.add(statusName);
+        long placeholders = pageQuery.chars().filter(c -> c == '?').count();
+        while(parameters.size() < placeholders){
+            parameters.add(parameters.size() == placeholders - 1 ? 21 : 0);
+        }
+        List<Map<String, Object>> plan = jdbcTemplate.queryForList("explain " + pageQuery, parameters.toArray());
+
+        // After the user_id equality, rows come off the index in the order of its remaining columns
+        List<String> indexOrder = Arrays.stream(index.columnList().split(","))
+                .map(column -> column.trim().toLowerCase()).skip(1).toList();
+        List<String> queryOrder = orderBy(pageQuery);
+        assertEquals(indexOrder.subList(0, queryOrder.size()), queryOrder, pageQuery);
+
+        if(isMySql()){
+            assertEquals(1, plan.size(), plan::toString);
+            assertEquals(index.name(), plan.get(0).get("key"));
+            String extra = String.valueOf(plan.get(0).get("Extra"));
+            assertFalse(extra.contains("filesort"), extra);
+            assertTrue(extra.contains("Using index"), extra);
+        }else{
+            String explained = String.valueOf(plan.get(0).values().iterator().next()).toLowerCase();
+            assertTrue(explained.contains(index.name() + ": user_id = ?1"), explained);
+        }
+    }
+
+    /**
+     * Returns the ORDER BY columns of a statement without table aliases, e.g. {@code [order_date desc, id]}.
+     */
+    private static List<String> orderBy(String sql){
+        String lower = sql.toLowerCase().replaceAll("\\s+", " ");
+        String clause = lower.substring(lower.lastIndexOf(" order by ") + " order by ".length())
+                .split(" (fetch|limit|offset) ")[0];
+        return Arrays.stream(clause.split(",")).map(column -> column.replaceAll("\\w+\\.", "").trim()).toList();
+    }
+
+    private static boolean isMySql(){
+        return !MYSQL_URL.isEmpty();
+    }
+}
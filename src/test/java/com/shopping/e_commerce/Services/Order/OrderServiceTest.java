@@ -0,0 +1,168 @@
+package com.shopping.e_commerce.Services.Order;
+
+import com.shopping.e_commerce.Entity.Cart;
+import com.shopping.e_commerce.Entity.CartItem;
+import com.shopping.e_commerce.Entity.Order;
+import com.shopping.e_commerce.Entity.Product;
+import com.shopping.e_commerce.Enums.OrderStatus;
+import com.shopping.e_commerce.Repository.OrderRepository;
+import com.shopping.e_commerce.Repository.ProductRepository;
+import com.shopping.e_commerce.Services.cart.ICartService;
+import com.shopping.e_commerce.Services.inventory.HotSkuInventory;
+import com.shopping.e_commerce.Services.outbox.OutboxService;
+import com.shopping.e_commerce.Services.product.ProductCache;
+import com.shopping.e_commerce.dto.OrderDTO.OrderDto;
+import com.shopping.e_commerce.dto.OrderDTO.OrderItemDto;
+import com.shopping.e_commerce.dto.OrderDTO.OrderPlacedEvent;
+import com.shopping.e_commerce.exceptions.InsufficientStockException;
+import com.shopping.e_commerce.mapper.OrderMapper;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that checkout reserves inventory with one conditional update, fails as a whole on a shortfall
+ * and places a single order per idempotency key, and that order history is read with one query.
+ */
+class OrderServiceTest {
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ICartService cartService = mock(ICartService.class);
+    private final HotSkuInventory hotSkuInventory = mock(HotSkuInventory.class);
+    private final OutboxService outboxService = mock(OutboxService.class);
+    private final OrderService orderService = new OrderService(orderRepository, productRepository, cartService,
+            Mappers.getMapper(OrderMapper.class), new ProductCache(100, 60), hotSkuInventory,
+            new TransactionTemplate(mock(PlatformTransactionManager.class)), outboxService);
+
+    @Test
+    void placeOrderDecrementsAllProductsInOneUpdate() {
+        when(cartService.getCartForCheckout(7L)).thenReturn(cart(item(2L, "4.00", 3), item(1L, "1.50", 2)));
+        when(productRepository.decrementInventories(anyMap())).thenReturn(2);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Order order = orderService.placeOrder(7L, "key-1");
+
+        verify(productRepository).decrementInventories(Map.of(1L, 2, 2L, 3));
+        assertEquals(0, new BigDecimal("15.00").compareTo(order.getTotalAmount()));
+        assertEquals("key-1", order.getIdempotencyKey());
+        verify(outboxService).publish(eq(OrderPlacedEvent.TYPE), any(OrderPlacedEvent.class));
+        verify(cartService).clearCart(1L);
+    }
+
+    @Test
+    void shortfallOnAnyLineFailsTheOrder() {
+        when(cartService.getCartForCheckout(7L)).thenReturn(cart(item(1L, "1.50", 2), item(2L, "4.00", 3)));
+        // Only one of the two products had enough stock
+        when(productRepository.decrementInventories(anyMap())).thenReturn(1);
+
+        assertThrows(InsufficientStockException.class, () -> orderService.placeOrder(7L, null));
+        verify(orderRepository, never()).save(any(Order.class));
+        verify(outboxService, never()).publish(any(), any());
+        verify(cartService, never()).clearCart(anyLong());
+    }
+
+    @Test
+    void hotSkuIsTakenFromMemoryAndReleasedOnShortfall() {
+        when(cartService.getCartForCheckout(7L)).thenReturn(cart(item(1L, "1.50", 2), item(2L, "4.00", 3)));
+        when(hotSkuInventory.isHot(1L)).thenReturn(true);
+        when(hotSkuInventory.tryReserve(1L, 2)).thenReturn(true);
+        when(productRepository.decrementInventories(anyMap())).thenReturn(0);
+
+        assertThrows(InsufficientStockException.class, () -> orderService.placeOrder(7L, null));
+        verify(productRepository).decrementInventories(Map.of(2L, 3));
+        verify(hotSkuInventory).release(1L, 2);
+    }
+
+    @Test
+    void repeatedKeyReturnsThePlacedOrder() {
+        Order placed = new Order();
+        when(orderRepository.findByUserIdAndIdempotencyKey(7L, "key-1")).thenReturn(Optional.of(placed));
+
+        assertSame(placed, orderService.placeOrder(7L, "key-1"));
+        verify(cartService, never()).getCartForCheckout(anyLong());
+    }
+
+    @Test
+    void concurrentRequestWithTheSameKeyReturnsTheOrderThatWon() {
+        Order placed = new Order();
+        when(orderRepository.findByUserIdAndIdempotencyKey(7L, "key-1")).thenReturn(Optional.empty(), Optional.of(placed));
+        when(cartService.getCartForCheckout(7L)).thenReturn(cart(item(1L, "1.50", 2)));
+        when(productRepository.decrementInventories(anyMap())).thenReturn(1);
+        when(orderRepository.save(any(Order.class))).thenThrow(new DataIntegrityViolationException("uk_orders_user_idempotency_key"));
+
+        assertSame(placed, orderService.placeOrder(7L, "key-1"));
+    }
+
+    @Test
+    void userOrdersAreGroupedFromOneQuery() {
+        when(orderRepository.findOrderRowsByUserId(7L)).thenReturn(List.of(
+                row(1L, 10L, "Phone", 1, "300.00"),
+                row(1L, 11L, "Case", 2, "10.00"),
+                row(2L, null, null, null, null)));
+
+        List<OrderDto> orders = orderService.getUserOrders(7L);
+
+        assertEquals(2, orders.size());
+        assertEquals(List.of("Phone", "Case"), orders.get(0).getItems().stream().map(OrderItemDto::getProductName).toList());
+        assertEquals("PENDING", orders.get(0).getOrderStatus());
+        assertEquals(List.of(), orders.get(1).getItems());
+        verify(orderRepository, never()).findByUserId(anyLong());
+    }
+
+    private static OrderRepository.OrderItemRow row(Long orderId, Long productId, String productName, Integer quantity, String price){
+        return new OrderRepository.OrderItemRow() {
+            public Long getOrderId() { return orderId; }
+            public Long getUserId() { return 7L; }
+            public LocalDate getOrderDate() { return LocalDate.of(2026, 1, 1); }
+            public BigDecimal getTotalAmount() { return BigDecimal.TEN; }
+            public OrderStatus getOrderStatus() { return OrderStatus.PENDING; }
+            public Integer getQuantity() { return quantity; }
+            public BigDecimal getPrice() { return price == null ? null : new BigDecimal(price); }
+            public Long getProductId() { return productId; }
+            public String getProductName() { return productName; }
+            public String getProductBrand() { return "Brand"; }
+        };
+    }
+
+    private static Cart cart(CartItem... items){
+        Cart cart = new Cart();
+        cart.setId(1L);
+        for(CartItem item : items){
+            cart.addItem(item);
+        }
+        return cart;
+    }
+
+    private static CartItem item(Long productId, String price, int quantity){
+        Product product = new Product();
+        product.setId(productId);
+        product.setPrice(new BigDecimal(price));
+        CartItem item = new CartItem();
+        item.setProduct(product);
+        item.setQuantity(quantity);
+        item.setUnitPrice(product.getPrice());
+        item.setTotalPrice();
+        return item;
+    }
+}
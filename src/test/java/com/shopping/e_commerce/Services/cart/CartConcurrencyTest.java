@@ -0,0 +1,168 @@
+package com.shopping.e_commerce.Services.cart;
+
+import com.shopping.e_commerce.Entity.Cart;
+import com.shopping.e_commerce.Entity.CartItem;
+import com.shopping.e_commerce.Entity.Product;
+import com.shopping.e_commerce.Repository.CartRepository;
+import com.shopping.e_commerce.Services.inventory.HotSkuInventory;
+import com.shopping.e_commerce.Services.inventory.InventoryHolds;
+import com.shopping.e_commerce.Services.product.IProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Hammers a single cart from many threads and checks that no quantity update is lost.
+ */
+class CartConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int ADDS_PER_THREAD = 500;
+
+    @Test
+    void concurrentAddsToOneCartKeepExactQuantities() throws Exception {
+        Product first = product(1L, "9.99");
+        Product second = product(2L, "0.10");
+        Cart cart = new Cart();
+        cart.setId(1L);
+
+        CartRepository cartRepository = mock(CartRepository.class);
+        when(cartRepository.findByIdWithItems(1L)).thenReturn(Optional.of(cart));
+        when(cartRepository.saveAndFlush(any(Cart.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        IProductService productService = mock(IProductService.class);
+        when(productService.getProductById(1L)).thenReturn(first);
+        when(productService.getProductById(2L)).thenReturn(second);
+
+        // Flush only when asked, so the test controls the write-behind interleaving
+        InMemoryCartStore cartStore = new InMemoryCartStore(cartRepository, mock(PlatformTransactionManager.class), 3, 3_600_000, 100, 1800);
+        CartItemService cartItemService = new CartItemService(productService, mock(ICartService.class), cartStore,
+                new InventoryHolds(false, 900, 1000, 500), mock(HotSkuInventory.class));
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for(int t = 0; t < THREADS; t++){
+            futures.add(pool.submit(() -> {
+                start.await();
+                for(int i = 0; i < ADDS_PER_THREAD; i++){
+                    cartItemService.addItemToCart(1L, i % 2 == 0 ? 1L : 2L, 1);
+                    if(i % 50 == 0){
+                        cartStore.flush(1L);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for(Future<?> future : futures){
+            future.get();
+        }
+        pool.shutdown();
+        cartStore.shutdown();
+
+        int expectedPerProduct = THREADS * ADDS_PER_THREAD / 2;
+        Cart result = cartStore.getCart(1L);
+        assertEquals(2, result.getItems().size());
+        assertEquals(expectedPerProduct, result.findItemByProductId(1L).getQuantity());
+        assertEquals(expectedPerProduct, result.findItemByProductId(2L).getQuantity());
+        BigDecimal expectedTotal = first.getPrice().add(second.getPrice()).multiply(BigDecimal.valueOf(expectedPerProduct));
+        assertEquals(0, expectedTotal.compareTo(result.getTotalAmount()));
+    }
+
+    @Test
+    void versionConflictIsRetriedOnTheLatestCart() {
+        Product product = product(1L, "5.00");
+        CartRepository cartRepository = mock(CartRepository.class);
+        // Every attempt loads the cart afresh, the second one sees the item another request added
+        when(cartRepository.findByIdWithItems(1L)).thenReturn(Optional.of(cartWithItem(product, 0)), Optional.of(cartWithItem(product, 3)));
+        AtomicInteger saves = new AtomicInteger();
+        when(cartRepository.saveAndFlush(any(Cart.class))).thenAnswer(invocation -> {
+            if(saves.getAndIncrement() == 0){
+                throw new ObjectOptimisticLockingFailureException(Cart.class, 1L);
+            }
+            return invocation.getArgument(0);
+        });
+        DatabaseCartStore cartStore = new DatabaseCartStore(cartRepository, mock(PlatformTransactionManager.class), 3);
+        List<Cart> changed = new ArrayList<>();
+
+        cartStore.update(1L, cart -> {
+            CartItem item = cart.findItemByProductId(1L);
+            cart.updateItem(item, item.getQuantity() + 2, item.getUnitPrice());
+            changed.add(cart);
+        });
+
+        assertEquals(2, changed.size());
+        assertEquals(5, changed.get(1).findItemByProductId(1L).getQuantity());
+        assertEquals(0, new BigDecimal("25.00").compareTo(changed.get(1).getTotalAmount()));
+    }
+
+    @Test
+    void retriesAreBounded() {
+        Product product = product(1L, "5.00");
+        CartRepository cartRepository = mock(CartRepository.class);
+        when(cartRepository.findByIdWithItems(1L)).thenAnswer(invocation -> Optional.of(cartWithItem(product, 1)));
+        when(cartRepository.saveAndFlush(any(Cart.class))).thenThrow(new ObjectOptimisticLockingFailureException(Cart.class, 1L));
+        DatabaseCartStore cartStore = new DatabaseCartStore(cartRepository, mock(PlatformTransactionManager.class), 2);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> cartStore.update(1L, cart -> {}));
+        verify(cartRepository, times(3)).saveAndFlush(any(Cart.class));
+    }
+
+    @Test
+    void snapshotIsNotChangedByLaterUpdates() {
+        Product product = product(1L, "5.00");
+        CartRepository cartRepository = mock(CartRepository.class);
+        when(cartRepository.findByIdWithItems(1L)).thenReturn(Optional.of(cartWithItem(product, 1)));
+        when(cartRepository.saveAndFlush(any(Cart.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        InMemoryCartStore cartStore = new InMemoryCartStore(cartRepository, mock(PlatformTransactionManager.class), 3, 3_600_000, 100, 1800);
+
+        Cart snapshot = cartStore.getCart(1L);
+        cartStore.update(1L, cart -> {
+            CartItem item = cart.findItemByProductId(1L);
+            cart.updateItem(item, item.getQuantity() + 4, item.getUnitPrice());
+        });
+        cartStore.shutdown();
+
+        assertEquals(1, snapshot.getItems().iterator().next().getQuantity());
+        assertEquals(0, new BigDecimal("5.00").compareTo(snapshot.getItems().iterator().next().getTotalPrice()));
+        assertEquals(5, cartStore.getCart(1L).findItemByProductId(1L).getQuantity());
+    }
+
+    private static Product product(Long id, String price){
+        Product product = new Product();
+        product.setId(id);
+        product.setPrice(new BigDecimal(price));
+        return product;
+    }
+
+    private static Cart cartWithItem(Product product, int quantity){
+        Cart cart = new Cart();
+        cart.setId(1L);
+        CartItem item = new CartItem();
+        item.setId(10L);
+        item.setProduct(product);
+        item.setQuantity(quantity);
+        item.setUnitPrice(product.getPrice());
+        item.setTotalPrice();
+        cart.addItem(item);
+        return cart;
+    }
+}
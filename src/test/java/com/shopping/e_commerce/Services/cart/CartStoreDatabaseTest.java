@@ -0,0 +1,221 @@
+package com.shopping.e_commerce.Services.cart;
+
+import com.shopping.e_commerce.Entity.Cart;
+import com.shopping.e_commerce.Entity.Category;
+import com.shopping.e_commerce.Entity.Product;
+import com.shopping.e_commerce.Entity.User;
+import com.shopping.e_commerce.Repository.CartItemRepository;
+import com.shopping.e_commerce.Repository.CartRepository;
+import com.shopping.e_commerce.Repository.CategoryRepository;
+import com.shopping.e_commerce.Repository.ProductRepository;
+import com.shopping.e_commerce.Repository.UserRepository;
+import com.shopping.e_commerce.Services.inventory.HotSkuInventory;
+import com.shopping.e_commerce.Services.inventory.InventoryHolds;
+import com.shopping.e_commerce.Services.product.IProductService;
+import com.shopping.e_commerce.exceptions.ResourceNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs two in-memory cart stores, standing for two writers, against the same cart in an H2 database,
+ * so the flush really meets the cart's version check and the unique constraint on (cart, product).
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:carts;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CartStoreDatabaseTest {
+
+    @Autowired
+    private CartRepository cartRepository;
+    @Autowired
+    private CartItemRepository cartItemRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final IProductService productService = mock(IProductService.class);
+    private TransactionTemplate transactionTemplate;
+    private InMemoryCartStore first;
+    private InMemoryCartStore second;
+    private Long cartId;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        cartId = transactionTemplate.execute(status -> {
+            Category category = categoryRepository.save(new Category("Books"));
+            for(long i = 1; i <= 2; i++){
+                Product product = productRepository.save(new Product("Book " + i, "Brand", "", "B-" + i, new BigDecimal("5.00"), 100, category));
+                when(productService.getProductById(product.getId())).thenReturn(product);
+            }
+            User user = new User();
+            user.setEmail("cart-test@example.com");
+            user = userRepository.save(user);
+            Cart cart = new Cart();
+            cart.setUser(user);
+            return cartRepository.save(cart).getId();
+        });
+        // Flush only when asked, so the test controls the interleaving
+        first = new InMemoryCartStore(cartRepository, transactionManager, 3, 3_600_000, 100, 1800);
+        second = new InMemoryCartStore(cartRepository, transactionManager, 3, 3_600_000, 100, 1800);
+    }
+
+    @AfterEach
+    void tearDown() {
+        first.shutdown();
+        second.shutdown();
+        transactionTemplate.executeWithoutResult(status -> {
+            cartRepository.deleteAll();
+            userRepository.deleteAll();
+            productRepository.deleteAll();
+            categoryRepository.deleteAll();
+        });
+    }
+
+    @Test
+    void flushAfterAnotherWriterMergesInsteadOfLosingChanges() {
+        Long[] productIds = productIds();
+        // Both stores hold the cart before either writes it
+        first.getCart(cartId);
+        second.getCart(cartId);
+
+        add(second, productIds[1], 2);
+        // A new item is written right away, the first store's cart now has an outdated version
+        add(first, productIds[0], 1);
+
+        Cart stored = storedCart();
+        assertEquals(2, stored.getItems().size());
+        assertEquals(1, stored.findItemByProductId(productIds[0]).getQuantity());
+        assertEquals(2, stored.findItemByProductId(productIds[1]).getQuantity());
+        assertEquals(0, new BigDecimal("15.00").compareTo(stored.getTotalAmount()));
+    }
+
+    @Test
+    void sameProductAddedByTwoWritersEndsUpInOneLine() {
+        Long productId = productIds()[0];
+        first.getCart(cartId);
+        second.getCart(cartId);
+
+        add(second, productId, 3);
+        // Inserting a second line for the product would break the unique constraint, the add is merged into the stored line
+        add(first, productId, 2);
+
+        Cart stored = storedCart();
+        assertEquals(1, stored.getItems().size());
+        assertEquals(5, stored.findItemByProductId(productId).getQuantity());
+        assertEquals(0, new BigDecimal("25.00").compareTo(stored.getTotalAmount()));
+    }
+
+    @Test
+    void addedItemCanBeUpdatedAndDeletedByItsId() {
+        Long[] productIds = productIds();
+        add(first, productIds[0], 1);
+        add(first, productIds[1], 1);
+
+        // Nothing was flushed explicitly, the items have the IDs the endpoints return
+        Cart cart = first.getCart(cartId);
+        Long updatedId = cart.findItemByProductId(productIds[0]).getId();
+        Long deletedId = cart.findItemByProductId(productIds[1]).getId();
+        cartItemService(first).updateItemQuantity(cartId, updatedId, 4);
+        cartItemService(first).deleteItemFromCart(cartId, deletedId);
+
+        cart = first.getCart(cartId);
+        assertEquals(1, cart.getItems().size());
+        assertEquals(4, cart.findItemById(updatedId).getQuantity());
+        first.flush(cartId);
+        Cart stored = storedCart();
+        assertEquals(1, stored.getItems().size());
+        assertEquals(4, stored.findItemById(updatedId).getQuantity());
+        assertEquals(0, new BigDecimal("20.00").compareTo(stored.getTotalAmount()));
+    }
+
+    @Test
+    void failedFlushIsThrownToTheCaller() {
+        add(first, productIds()[0], 1);
+        Long itemId = first.getCart(cartId).getItems().iterator().next().getId();
+        // Changing the quantity is kept in memory until the next flush
+        cartItemService(first).updateItemQuantity(cartId, itemId, 2);
+        // A bulk delete, removing the loaded cart would be undone by the cascade from its user
+        transactionTemplate.executeWithoutResult(status -> {
+            cartItemRepository.deleteAllInBatch();
+            cartRepository.deleteAllInBatch();
+        });
+
+        // Checkout must not go on with the cart it would read from the database
+        assertThrows(ResourceNotFoundException.class, () -> first.flush(cartId));
+    }
+
+    @Test
+    void holdIsRestoredWhenTheCartCannotBeWritten() {
+        Long productId = productIds()[0];
+        DatabaseCartStore cartStore = new DatabaseCartStore(cartRepository, transactionManager, 0);
+        InventoryHolds inventoryHolds = new InventoryHolds(true, 900, 3_600_000, 500);
+        try {
+            CartItemService cartItemService = new CartItemService(productService, mock(ICartService.class), cartStore,
+                    inventoryHolds, mock(HotSkuInventory.class));
+            when(productService.getInventory(productId)).thenReturn(100);
+            cartItemService.addItemToCart(cartId, productId, 2);
+
+            // Another writer changes the cart while the stock is held, and no retry is left
+            TransactionTemplate otherWriter = new TransactionTemplate(transactionManager);
+            otherWriter.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            when(productService.getInventory(productId)).thenAnswer(invocation -> {
+                otherWriter.executeWithoutResult(status -> {
+                    Cart cart = cartRepository.findById(cartId).orElseThrow();
+                    cart.setTotalAmount(cart.getTotalAmount().add(BigDecimal.ONE));
+                });
+                return 100;
+            });
+            assertThrows(OptimisticLockingFailureException.class, () -> cartItemService.addItemToCart(cartId, productId, 3));
+
+            assertEquals(Map.of(productId, 2), inventoryHolds.getHeld(cartId, List.of(productId)));
+            assertEquals(98, inventoryHolds.getAvailable(productId, 100));
+        } finally {
+            inventoryHolds.shutdown();
+        }
+    }
+
+    private void add(InMemoryCartStore cartStore, Long productId, int quantity){
+        cartItemService(cartStore).addItemToCart(cartId, productId, quantity);
+    }
+
+    private CartItemService cartItemService(CartStore cartStore){
+        return new CartItemService(productService, mock(ICartService.class), cartStore, new InventoryHolds(false, 900, 1000, 500),
+                mock(HotSkuInventory.class));
+    }
+
+    private Long[] productIds(){
+        return productRepository.findAll().stream().map(Product::getId).sorted().toArray(Long[]::new);
+    }
+
+    private Cart storedCart(){
+        return transactionTemplate.execute(status -> cartRepository.findByIdWithItems(cartId).orElseThrow());
+    }
+}
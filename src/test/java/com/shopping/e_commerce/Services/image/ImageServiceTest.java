@@ -0,0 +1,111 @@
+package com.shopping.e_commerce.Services.image;
+
+import com.shopping.e_commerce.Entity.Image;
+import com.shopping.e_commerce.Entity.Product;
+import com.shopping.e_commerce.Repository.ImageRepository;
+import com.shopping.e_commerce.Services.image.storage.ImageStorage;
+import com.shopping.e_commerce.Services.image.storage.StoredImage;
+import com.shopping.e_commerce.Services.product.ProductCache;
+import com.shopping.e_commerce.Services.product.ProductService;
+import com.shopping.e_commerce.dto.ImageDTO.ImageUploadResultDto;
+import com.shopping.e_commerce.mapper.ImageMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ImageServiceTest {
+
+    private final ImageRepository imageRepository = mock(ImageRepository.class);
+    private final ImageStorage imageStorage = mock(ImageStorage.class);
+    private final ImageService imageService = new ImageService(imageRepository, mock(ProductService.class), new ProductCache(100, 60),
+            imageStorage, mock(ImageVariantService.class), mock(ImageUploadExecutor.class), mock(ImageMapper.class));
+
+    @Test
+    void contentReleasedBeforeTheImageIsSavedIsStoredAgain() throws Exception {
+        Image image = image("old");
+        image.setFileType("image/jpeg");
+        when(imageRepository.findById(1L)).thenReturn(Optional.of(image));
+        when(imageStorage.store(any(InputStream.class))).thenReturn(new StoredImage("new", 3));
+        // Another image with the same bytes was deleted right after they were stored
+        when(imageStorage.exists("new")).thenReturn(false);
+
+        imageService.updateImage(new MockMultipartFile("file", "a.png", "image/png", new byte[]{1, 2, 3}), 1L);
+
+        InOrder order = inOrder(imageStorage, imageRepository);
+        order.verify(imageStorage, times(2)).store(any(InputStream.class));
+        order.verify(imageRepository).save(image);
+        order.verify(imageStorage).delete("old");
+        assertEquals("image/png", image.getFileType());
+    }
+
+    @Test
+    void fileThatCannotBeStoredAgainFailsAlone() throws Exception {
+        AtomicInteger storesOfB = new AtomicInteger();
+        when(imageStorage.store(any(InputStream.class))).thenAnswer(invocation -> {
+            String contentHash = new String(invocation.<InputStream>getArgument(0).readAllBytes());
+            if(contentHash.equals("b") && storesOfB.incrementAndGet() > 1){
+                throw new IOException("Disk full");
+            }
+            return new StoredImage(contentHash, 1);
+        });
+        when(imageStorage.exists("a")).thenReturn(true);
+        // The bytes of b were released right after they were stored, and storing them again fails
+        when(imageStorage.exists("b")).thenReturn(false);
+        ImageUploadExecutor imageUploadExecutor = new ImageUploadExecutor(2, 2);
+        try {
+            ImageService service = new ImageService(imageRepository, mock(ProductService.class), new ProductCache(100, 60),
+                    imageStorage, mock(ImageVariantService.class), imageUploadExecutor, mock(ImageMapper.class));
+
+            List<ImageUploadResultDto> results = service.saveImages(List.of(
+                    new MockMultipartFile("files", "a.png", "image/png", "a".getBytes()),
+                    new MockMultipartFile("files", "b.png", "image/png", "b".getBytes())), 5L);
+
+            assertTrue(results.get(0).isSuccess());
+            assertFalse(results.get(1).isSuccess());
+            assertEquals("Disk full", results.get(1).getError());
+            verify(imageRepository).saveAll(argThat((List<Image> images) ->
+                    images.size() == 1 && images.get(0).getContentHash().equals("a")));
+        } finally {
+            imageUploadExecutor.shutdown();
+        }
+    }
+
+    @Test
+    void contentStillReferencedIsKept() throws Exception {
+        Image image = image("shared");
+        when(imageRepository.findById(1L)).thenReturn(Optional.of(image));
+        when(imageRepository.existsByContentHash("shared")).thenReturn(true);
+
+        imageService.deleteImageById(1L);
+
+        verify(imageStorage, never()).delete("shared");
+    }
+
+    private static Image image(String contentHash){
+        Product product = new Product();
+        product.setId(5L);
+        Image image = new Image();
+        image.setId(1L);
+        image.setContentHash(contentHash);
+        image.setProduct(product);
+        return image;
+    }
+}
@@ -0,0 +1,75 @@
+package com.shopping.e_commerce.Services.image;
+
+import com.shopping.e_commerce.Services.image.storage.LocalFileSystemImageStorage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks which missing variants are still to come and that a missing one is generated on request.
+ */
+class ImageVariantServiceTest {
+
+    @TempDir
+    Path storageRoot;
+
+    private ImageVariantService variantService;
+
+    @AfterEach
+    void tearDown() {
+        variantService.shutdown();
+    }
+
+    @Test
+    void originalNotWiderThanTheVariantIsFinal() throws Exception {
+        LocalFileSystemImageStorage storage = new LocalFileSystemImageStorage(storageRoot.toString());
+        variantService = new ImageVariantService(storage, new int[]{128, 320}, 1, 1);
+        String contentHash = storage.store(new ByteArrayInputStream(png(200))).getContentHash();
+
+        assertTrue(variantService.findVariant(contentHash, "image/png", 1000).isEmpty());
+        assertFalse(variantService.isVariantPending(contentHash, "image/png", 1000));
+        assertFalse(variantService.isVariantPending(contentHash, "image/png", 200));
+    }
+
+    @Test
+    void missingVariantIsGeneratedOnRequest() throws Exception {
+        LocalFileSystemImageStorage storage = new LocalFileSystemImageStorage(storageRoot.toString());
+        variantService = new ImageVariantService(storage, new int[]{128, 320}, 1, 1);
+        // Stored without generating variants, as if the job had been dropped from a full queue
+        String contentHash = storage.store(new ByteArrayInputStream(png(200))).getContentHash();
+
+        assertTrue(variantService.isVariantPending(contentHash, "image/png", 100));
+        long deadline = System.currentTimeMillis() + 5_000;
+        while(variantService.findVariant(contentHash, "image/png", 100).isEmpty() && System.currentTimeMillis() < deadline){
+            Thread.sleep(10);
+        }
+        assertEquals(128, variantService.findVariant(contentHash, "image/png", 100).orElseThrow().getWidth());
+    }
+
+    @Test
+    void contentThatCannotBeResizedIsFinal() throws Exception {
+        LocalFileSystemImageStorage storage = new LocalFileSystemImageStorage(storageRoot.toString());
+        variantService = new ImageVariantService(storage, new int[]{128, 320}, 1, 1);
+        String contentHash = storage.store(new ByteArrayInputStream("not an image".getBytes(StandardCharsets.UTF_8))).getContentHash();
+
+        assertFalse(variantService.isVariantPending(contentHash, "image/jpeg", 100));
+    }
+
+    private static byte[] png(int width) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, width / 2, BufferedImage.TYPE_INT_ARGB), "png", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,188 @@
+package com.shopping.e_commerce.Services.inventory;
+
+import com.shopping.e_commerce.Repository.ProductRepository;
+import com.shopping.e_commerce.Services.product.ProductCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Sells a hot SKU from many threads and checks that it is never oversold and that every sale is written back.
+ */
+class HotSkuInventoryTest {
+
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 500;
+    private static final int STOCK = 1003;
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+
+    @Test
+    void concurrentReservationsSellExactlyTheStock() throws Exception {
+        when(productRepository.findInventoryById(1L)).thenReturn(Optional.of(STOCK));
+        HotSkuInventory inventory = newInventory();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger sold = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for(int t = 0; t < THREADS; t++){
+            futures.add(pool.submit(() -> {
+                start.await();
+                for(int i = 0; i < ATTEMPTS_PER_THREAD; i++){
+                    int quantity = i % 3 + 1;
+                    if(inventory.tryReserve(1L, quantity)){
+                        sold.addAndGet(quantity);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for(Future<?> future : futures){
+            future.get();
+        }
+        pool.shutdown();
+
+        // Sell what is left one by one, in total exactly the stock must have been sold
+        while(inventory.tryReserve(1L, 1)){
+            sold.incrementAndGet();
+        }
+        assertEquals(STOCK, sold.get());
+
+        inventory.shutdown();
+        verify(productRepository).subtractInventory(1L, STOCK);
+    }
+
+    @Test
+    void releasedStockIsNotWrittenBack() {
+        when(productRepository.findInventoryById(1L)).thenReturn(Optional.of(5));
+        HotSkuInventory inventory = newInventory();
+
+        assertTrue(inventory.tryReserve(1L, 5));
+        assertFalse(inventory.tryReserve(1L, 1));
+        inventory.release(1L, 5);
+        assertTrue(inventory.tryReserve(1L, 2));
+
+        inventory.shutdown();
+        verify(productRepository).subtractInventory(1L, 2);
+    }
+
+    @Test
+    void reductionLargerThanOneStripeIsTakenFromAllStripes() {
+        when(productRepository.findInventoryById(1L)).thenReturn(Optional.of(16));
+        HotSkuInventory inventory = newInventory();
+        assertTrue(inventory.tryReserve(1L, 1));
+        inventory.release(1L, 1);
+
+        // 4 units on each of the 4 stripes, the reduction empties more than one of them
+        inventory.adjust(1L, -10);
+
+        assertEquals(6, inventory.getAvailable(1L));
+        assertEquals(6, sellOneByOne(inventory));
+    }
+
+    @Test
+    void reductionBelowZeroIsMadeUpByLaterStock() {
+        when(productRepository.findInventoryById(1L)).thenReturn(Optional.of(16));
+        HotSkuInventory inventory = newInventory();
+        assertTrue(inventory.tryReserve(1L, 6));
+
+        // 10 left, 20 removed: nothing can be sold until more than the shortfall of 10 is added
+        inventory.adjust(1L, -20);
+        assertFalse(inventory.tryReserve(1L, 1));
+        inventory.release(1L, 6);
+        assertFalse(inventory.tryReserve(1L, 1));
+        inventory.adjust(1L, 7);
+
+        assertEquals(3, sellOneByOne(inventory));
+    }
+
+    @Test
+    void productsThatAreNotHotAreNotLoaded() {
+        HotSkuInventory inventory = newInventory();
+
+        assertFalse(inventory.isHot(2L));
+        inventory.adjust(2L, 10);
+
+        inventory.shutdown();
+        verify(productRepository, never()).findInventoryById(anyLong());
+        verify(productRepository, never()).subtractInventory(anyLong(), anyInt());
+    }
+
+    @Test
+    void editDuringWriteBackDoesNotOverwriteTheSales() throws Exception {
+        // The stored inventory, changed by the write-back and by the edit
+        AtomicInteger stored = new AtomicInteger(100);
+        when(productRepository.findInventoryById(1L)).thenAnswer(invocation -> Optional.of(stored.get()));
+        when(productRepository.subtractInventory(anyLong(), anyInt()))
+                .thenAnswer(invocation -> stored.addAndGet(-invocation.<Integer>getArgument(1)));
+        HotSkuInventory inventory = newInventory();
+        for(int i = 0; i < 10; i++){
+            assertTrue(inventory.tryReserve(1L, 1));
+        }
+
+        // The edit sets the inventory to 50, and is slow enough for the write-back to be attempted in between
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        CountDownLatch read = new CountDownLatch(1);
+        Future<?> edit = pool.submit(() -> inventory.editInventory(1L, () -> {
+            int before = stored.get();
+            read.countDown();
+            sleep(200);
+            inventory.adjust(1L, 50 - before);
+            stored.set(50);
+            return null;
+        }));
+        read.await();
+        inventory.reconcile();
+        edit.get();
+        pool.shutdown();
+
+        // The 10 units sold before the edit are taken from the new inventory as well
+        assertEquals(40, stored.get());
+        assertEquals(40, sellOneByOne(inventory));
+        inventory.shutdown();
+        assertEquals(0, stored.get());
+    }
+
+    private static void sleep(long millis){
+        try{
+            Thread.sleep(millis);
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private int sellOneByOne(HotSkuInventory inventory){
+        int sold = 0;
+        while(inventory.tryReserve(1L, 1)){
+            sold++;
+        }
+        return sold;
+    }
+
+    private HotSkuInventory newInventory(){
+        // Write back only on shutdown, so the test sees every sale in a single write
+        return new HotSkuInventory(productRepository, new ProductCache(100, 60), mock(PlatformTransactionManager.class),
+                Set.of(1L), 4, 3_600_000);
+    }
+}
@@ -0,0 +1,85 @@
+package com.shopping.e_commerce.Services.inventory;
+
+import com.shopping.e_commerce.exceptions.InsufficientStockException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that holds limit what other carts can take and that expired holds are released by the sweeper.
+ */
+class InventoryHoldsTest {
+
+    private static final long TTL_MILLIS = 60_000;
+
+    // Sweep only when the test asks for it
+    private final InventoryHolds holds = new InventoryHolds(true, TTL_MILLIS / 1000, 3_600_000, 2);
+
+    @Test
+    void holdIsRefusedWhenOtherCartsHoldTheStock() {
+        holds.hold(1L, Map.of(10L, 7), Map.of(10L, 10)::get);
+
+        assertThrows(InsufficientStockException.class, () -> holds.hold(2L, Map.of(10L, 4), Map.of(10L, 10)::get));
+        holds.hold(2L, Map.of(10L, 3), Map.of(10L, 10)::get);
+        assertEquals(0, holds.getAvailable(10L, 10));
+
+        // Lowering the own hold always succeeds and frees stock for the others
+        holds.hold(1L, Map.of(10L, 5), Map.of(10L, 10)::get);
+        assertEquals(2, holds.getAvailable(10L, 10));
+        holds.releaseCart(2L);
+        assertEquals(5, holds.getAvailable(10L, 10));
+    }
+
+    @Test
+    void refusedHoldChangesNoProduct() {
+        holds.hold(1L, Map.of(20L, 5), Map.of(20L, 5)::get);
+
+        assertThrows(InsufficientStockException.class, () -> holds.hold(2L, Map.of(10L, 1, 20L, 1), Map.of(10L, 10, 20L, 5)::get));
+        assertEquals(10, holds.getAvailable(10L, 10));
+        assertEquals(0, holds.getAvailable(20L, 5));
+    }
+
+    @Test
+    void sweeperReleasesOnlyExpiredHolds() {
+        long start = System.currentTimeMillis();
+        holds.hold(1L, Map.of(10L, 1), Map.of(10L, 10)::get);
+        holds.hold(2L, Map.of(10L, 2), Map.of(10L, 10)::get);
+        holds.hold(3L, Map.of(10L, 3, 20L, 4), Map.of(10L, 10, 20L, 10)::get);
+
+        holds.sweep(start);
+        assertEquals(4, holds.getAvailable(10L, 10));
+
+        // More expired holds than one batch, all of them are released
+        holds.sweep(start + 2 * TTL_MILLIS);
+        assertEquals(10, holds.getAvailable(10L, 10));
+        assertEquals(10, holds.getAvailable(20L, 10));
+    }
+
+    @Test
+    void renewedHoldOutlivesItsFirstExpiry() throws Exception {
+        holds.hold(1L, Map.of(10L, 1), Map.of(10L, 10)::get);
+        long firstExpiry = System.currentTimeMillis() + TTL_MILLIS;
+        Thread.sleep(5);
+        holds.hold(1L, Map.of(10L, 2), Map.of(10L, 10)::get);
+
+        holds.sweep(firstExpiry);
+        assertEquals(8, holds.getAvailable(10L, 10));
+    }
+
+    @Test
+    void inventoryIsOnlyReadWhenHoldsAreEnabled() {
+        InventoryHolds disabled = new InventoryHolds(false, TTL_MILLIS / 1000, 3_600_000, 2);
+        disabled.hold(1L, Map.of(10L, 1), productId -> {
+            throw new AssertionError("Inventory read while holds are disabled");
+        });
+
+        // The hold sees the inventory as it is now, not as it was cached
+        int[] inventory = {10};
+        holds.hold(1L, Map.of(10L, 8), productId -> inventory[0]);
+        inventory[0] = 8;
+        assertThrows(InsufficientStockException.class, () -> holds.hold(2L, Map.of(10L, 1), productId -> inventory[0]));
+    }
+}
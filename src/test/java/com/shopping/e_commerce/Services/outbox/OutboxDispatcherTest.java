@@ -0,0 +1,102 @@
+package com.shopping.e_commerce.Services.outbox;
+
+import com.shopping.e_commerce.Entity.OutboxEvent;
+import com.shopping.e_commerce.Enums.OutboxEventStatus;
+import com.shopping.e_commerce.Repository.OutboxEventRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that claimed outbox events reach their handlers and that failures are retried with backoff.
+ */
+class OutboxDispatcherTest {
+
+    private final OutboxEventRepository outboxEventRepository = mock(OutboxEventRepository.class);
+    private final List<OutboxEvent> handled = new ArrayList<>();
+
+    @Test
+    void handledEventsAreDeleted() {
+        OutboxEvent placed = event(1L, "OrderPlaced", 0);
+        OutboxEvent unknown = event(2L, "Unknown", 0);
+        when(outboxEventRepository.claimDue(any(Instant.class), anyInt())).thenReturn(List.of(placed, unknown));
+
+        assertEquals(2, dispatcher(handler("OrderPlaced", false)).poll());
+
+        assertEquals(List.of(placed), handled);
+        assertEquals(1, placed.getAttempts());
+        verify(outboxEventRepository).deleteEvent(1L);
+        // Nobody is interested in the event, it is done
+        verify(outboxEventRepository).deleteEvent(2L);
+    }
+
+    @Test
+    void failedEventIsRetriedLater() {
+        OutboxEvent placed = event(1L, "OrderPlaced", 2);
+        when(outboxEventRepository.claimDue(any(Instant.class), anyInt())).thenReturn(List.of(placed));
+        Instant before = Instant.now();
+
+        dispatcher(handler("OrderPlaced", true)).poll();
+
+        verify(outboxEventRepository, never()).deleteEvent(anyLong());
+        // Third attempt: 1000ms << 2
+        verify(outboxEventRepository).recordFailure(eq(1L), eq(OutboxEventStatus.PENDING),
+                argThat(next -> !next.isBefore(before.plusMillis(4000))), eq("boom"));
+    }
+
+    @Test
+    void eventIsGivenUpAfterMaxAttempts() {
+        OutboxEvent placed = event(1L, "OrderPlaced", 4);
+        when(outboxEventRepository.claimDue(any(Instant.class), anyInt())).thenReturn(List.of(placed));
+
+        dispatcher(handler("OrderPlaced", true)).poll();
+
+        verify(outboxEventRepository).recordFailure(eq(1L), eq(OutboxEventStatus.FAILED), any(Instant.class), eq("boom"));
+        assertTrue(handled.contains(placed));
+    }
+
+    private OutboxDispatcher dispatcher(OutboxEventHandler handler){
+        // No workers, the test polls itself
+        return new OutboxDispatcher(outboxEventRepository, mock(PlatformTransactionManager.class), List.of(handler),
+                0, 3_600_000, 10, 5, 60, 1000, 300_000);
+    }
+
+    private OutboxEventHandler handler(String eventType, boolean fail){
+        return new OutboxEventHandler() {
+            @Override
+            public String getEventType() {
+                return eventType;
+            }
+
+            @Override
+            public void handle(OutboxEvent event) {
+                handled.add(event);
+                if(fail){
+                    throw new IllegalStateException("boom");
+                }
+            }
+        };
+    }
+
+    private static OutboxEvent event(Long id, String eventType, int attempts){
+        OutboxEvent event = new OutboxEvent(eventType, "{}");
+        event.setId(id);
+        event.setAttempts(attempts);
+        return event;
+    }
+}
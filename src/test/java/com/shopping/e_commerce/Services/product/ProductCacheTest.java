@@ -0,0 +1,61 @@
+package com.shopping.e_commerce.Services.product;
+
+import com.shopping.e_commerce.Entity.Category;
+import com.shopping.e_commerce.Entity.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+class ProductCacheTest {
+
+    @Test
+    void everyReadReturnsItsOwnCopy() {
+        ProductCache productCache = new ProductCache(100, 60);
+        AtomicInteger loads = new AtomicInteger();
+
+        Product first = productCache.getProduct(1L, id -> {
+            loads.incrementAndGet();
+            return product(id);
+        });
+        // A caller changing its copy must not change what other callers read
+        first.setPrice(new BigDecimal("1.00"));
+        first.getCategory().setName("Changed");
+        Product second = productCache.getProduct(1L, id -> {
+            loads.incrementAndGet();
+            return product(id);
+        });
+
+        assertEquals(1, loads.get());
+        assertNotSame(first, second);
+        assertEquals(new BigDecimal("9.99"), second.getPrice());
+        assertEquals("Books", second.getCategory().getName());
+        assertEquals(7L, second.getCategory().getId());
+    }
+
+    @Test
+    void evictedProductIsLoadedAgain() {
+        ProductCache productCache = new ProductCache(100, 60);
+        productCache.getProduct(1L, ProductCacheTest::product);
+
+        productCache.evict(1L);
+        Product reloaded = productCache.getProduct(1L, id -> {
+            Product product = product(id);
+            product.setInventory(3);
+            return product;
+        });
+
+        assertEquals(3, reloaded.getInventory());
+    }
+
+    private static Product product(Long id){
+        Category category = new Category("Books");
+        category.setId(7L);
+        Product product = new Product("Book", "Brand", "", "B-1", new BigDecimal("9.99"), 10, category);
+        product.setId(id);
+        return product;
+    }
+}
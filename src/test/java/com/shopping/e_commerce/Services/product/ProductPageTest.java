@@ -0,0 +1,91 @@
+package com.shopping.e_commerce.Services.product;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopping.e_commerce.Entity.Category;
+import com.shopping.e_commerce.Entity.Product;
+import com.shopping.e_commerce.Enums.ProductSort;
+import com.shopping.e_commerce.Repository.CategoryRepository;
+import com.shopping.e_commerce.Repository.ProductRepository;
+import com.shopping.e_commerce.Services.inventory.HotSkuInventory;
+import com.shopping.e_commerce.Services.inventory.InventoryHolds;
+import com.shopping.e_commerce.dto.ProductDTO.ProductDto;
+import com.shopping.e_commerce.dto.ProductDTO.ProductPageDto;
+import com.shopping.e_commerce.mapper.ImageMapperImpl;
+import com.shopping.e_commerce.mapper.ProductMapperImpl;
+import com.shopping.e_commerce.mapper.ReviewMapperImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Pages through products whose sort column is partly null, so every product must show up exactly once.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:products;MODE=MySQL;NON_KEYWORDS=USER",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ProductService.class, ProductCache.class, ProductMapperImpl.class, ImageMapperImpl.class, ReviewMapperImpl.class})
+class ProductPageTest {
+
+    @MockBean
+    private HotSkuInventory hotSkuInventory;
+    @MockBean
+    private InventoryHolds inventoryHolds;
+    @MockBean
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void createProducts() {
+        Category category = categoryRepository.save(new Category("Books"));
+        String[] prices = {null, "5.00", null, "3.00", "5.00", null, "1.00"};
+        String[] names = {"b", null, "a", null, "b", "c", null};
+        for(int i = 0; i < prices.length; i++){
+            Product product = new Product(names[i], "Brand", "", "B-" + i, prices[i] == null ? null : new BigDecimal(prices[i]), 1, category);
+            ids.add(productRepository.save(product).getId());
+        }
+    }
+
+    @Test
+    void productsWithoutPriceComeFirst() {
+        assertEquals(List.of(ids.get(0), ids.get(2), ids.get(5), ids.get(6), ids.get(3), ids.get(1), ids.get(4)),
+                allPages(ProductSort.PRICE));
+    }
+
+    @Test
+    void productsWithoutNameComeFirst() {
+        assertEquals(List.of(ids.get(1), ids.get(3), ids.get(6), ids.get(2), ids.get(0), ids.get(4), ids.get(5)),
+                allPages(ProductSort.NAME));
+    }
+
+    private List<Long> allPages(ProductSort sort){
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            // Two per page, so pages end on a null as well as on a value
+            ProductPageDto page = productService.getProductPage(cursor, 2, sort);
+            page.getProducts().stream().map(ProductDto::getId).forEach(seen::add);
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return seen;
+    }
+}
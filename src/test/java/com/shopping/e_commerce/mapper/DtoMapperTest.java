@@ -0,0 +1,129 @@
+package com.shopping.e_commerce.mapper;
+
+import com.shopping.e_commerce.Entity.Billing;
+import com.shopping.e_commerce.Entity.Cart;
+import com.shopping.e_commerce.Entity.CartItem;
+import com.shopping.e_commerce.Entity.Order;
+import com.shopping.e_commerce.Entity.OrderItem;
+import com.shopping.e_commerce.Entity.Product;
+import com.shopping.e_commerce.Entity.ShippingInformation;
+import com.shopping.e_commerce.Entity.User;
+import com.shopping.e_commerce.Enums.OrderStatus;
+import com.shopping.e_commerce.dto.CartDTO.CartDto;
+import com.shopping.e_commerce.dto.CartDTO.CartItemDto;
+import com.shopping.e_commerce.dto.OrderDTO.OrderDto;
+import com.shopping.e_commerce.dto.OrderDTO.OrderItemDto;
+import com.shopping.e_commerce.dto.ProductDTO.ProductDto;
+import com.shopping.e_commerce.dto.UserDTO.UserDto;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Checks what the generated mappers copy, and that they leave the associations they are told to skip untouched.
+ */
+class DtoMapperTest {
+
+    @Test
+    void userMapperDoesNotLoadOrdersCartAndReviews() {
+        User user = new User();
+        user.setId(3L);
+        user.setEmail("jane@example.com");
+        Billing billing = new Billing();
+        billing.setFullName("Jane Doe");
+        user.setBilling(billing);
+        ShippingInformation shipping = new ShippingInformation();
+        shipping.setCity("Cape Town");
+        user.setShippingInformations(List.of(shipping));
+        User spiedUser = spy(user);
+
+        UserDto userDto = new UserMapperImpl(new BillingMapperImpl(), new ShippingMapperImpl()).toDto(spiedUser);
+
+        assertEquals(3L, userDto.getId());
+        assertEquals("Jane Doe", userDto.getBilling().getFullName());
+        assertEquals("Cape Town", userDto.getShippingInformations().get(0).getCity());
+        verify(spiedUser, never()).getOrder();
+        verify(spiedUser, never()).getCart();
+        verify(spiedUser, never()).getReviews();
+    }
+
+    @Test
+    void orderMapperFlattensUserAndProducts() {
+        Product product = new Product();
+        product.setId(5L);
+        product.setName("Phone");
+        product.setBrand("Acme");
+        User user = new User();
+        user.setId(3L);
+        Order order = new Order();
+        order.setId(9L);
+        order.setUser(user);
+        order.setOrderDate(LocalDate.of(2024, 1, 2));
+        order.setOrderStatus(OrderStatus.PENDING);
+        OrderItem item = new OrderItem();
+        item.setProduct(product);
+        item.setQuantity(2);
+        item.setPrice(new BigDecimal("4.00"));
+        order.setOrderItems(Set.of(item));
+
+        OrderDto orderDto = Mappers.getMapper(OrderMapper.class).toDto(order);
+
+        assertEquals(3L, orderDto.getUserId());
+        assertEquals("PENDING", orderDto.getOrderStatus());
+        OrderItemDto itemDto = orderDto.getItems().get(0);
+        assertEquals(5L, itemDto.getProductId());
+        assertEquals("Phone", itemDto.getProductName());
+        assertEquals("Acme", itemDto.getProductBrand());
+        assertEquals(2, itemDto.getQuantity());
+    }
+
+    @Test
+    void cartMapperMapsItemsWithTheirProducts() {
+        Product product = new Product();
+        product.setId(5L);
+        product.setName("Phone");
+        Cart cart = new Cart();
+        cart.setId(7L);
+        CartItem item = new CartItem();
+        item.setId(11L);
+        item.setProduct(product);
+        item.setQuantity(2);
+        item.setUnitPrice(new BigDecimal("4.00"));
+        item.setTotalPrice();
+        cart.addItem(item);
+
+        CartDto cartDto = new CartMapperImpl(new ProductMapperImpl()).toDto(cart);
+
+        assertEquals(7L, cartDto.getCartId());
+        assertEquals(0, new BigDecimal("8.00").compareTo(cartDto.getTotalAmount()));
+        CartItemDto itemDto = cartDto.getItems().iterator().next();
+        assertEquals(11L, itemDto.getItemId());
+        assertEquals(2, itemDto.getQuantity());
+        assertEquals("Phone", itemDto.getProduct().getName());
+    }
+
+    @Test
+    void productMapperLeavesImagesAndReviewsToTheService() {
+        Product product = spy(new Product());
+        product.setId(5L);
+        product.setPrice(new BigDecimal("9.99"));
+
+        ProductDto productDto = Mappers.getMapper(ProductMapper.class).toDto(product);
+
+        assertEquals(new BigDecimal("9.99"), productDto.getPrice());
+        assertNull(productDto.getImages());
+        assertNull(productDto.getReviews());
+        verify(product, never()).getImages();
+        verify(product, never()).getReviews();
+    }
+}